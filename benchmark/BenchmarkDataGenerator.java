@@ -0,0 +1,143 @@
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генератор воспроизводимых наборов задач для замеров производительности.
+ * При одинаковых параметрах и зерне генерируются одинаковые данные.
+ * Время задач не пересекается: шкала времени разбита на интервалы,
+ * каждой задаче со временем достается свой интервал в случайном порядке.
+ */
+public class BenchmarkDataGenerator {
+    // продолжительность каждой задачи со временем
+    private static final int TASK_MINUTES = 10;
+    private static final LocalDateTime TIMELINE_START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private final int fanOut;
+    private final double timeDensity;
+    private final long seed;
+
+    /**
+     * Конструктор генератора
+     *
+     * @param fanOut      - число подзадач в одном эпике
+     * @param timeDensity - доля шкалы времени, занятая задачами (0..1]
+     * @param seed        - зерно генератора случайных чисел
+     */
+    public BenchmarkDataGenerator(int fanOut, double timeDensity, long seed) {
+        if (fanOut < 1) {
+            throw new IllegalArgumentException("Число подзадач эпика должно быть больше нуля: " + fanOut);
+        }
+        if (timeDensity <= 0 || timeDensity > 1) {
+            throw new IllegalArgumentException("Плотность времени должна быть в диапазоне (0..1]: "
+                    + timeDensity);
+        }
+        this.fanOut = fanOut;
+        this.timeDensity = timeDensity;
+        this.seed = seed;
+    }
+
+    /**
+     * Генерация простых задач
+     *
+     * @param count - число задач
+     * @return - список новых задач
+     */
+    public List<Task> tasks(int count) {
+        Random random = new Random(seed);
+        List<LocalDateTime> startTimes = startTimes(count, random, 0);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Task task = new Task("Задача №" + i, "Описание задачи №" + i,
+                    startTimes.get(i), Duration.ofMinutes(TASK_MINUTES));
+            task.setStatus(randomStatus(random));
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Генерация эпиков для заданного числа подзадач
+     *
+     * @param subtaskCount - число подзадач
+     * @return - список новых эпиков
+     */
+    public List<Epic> epics(int subtaskCount) {
+        int count = (subtaskCount + fanOut - 1) / fanOut;
+        List<Epic> epics = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            epics.add(new Epic("Эпик №" + i, "Описание эпика №" + i));
+        }
+        return epics;
+    }
+
+    /**
+     * Генерация подзадач.
+     * Идентификатор эпика подзадачи равен номеру эпика в списке epics(),
+     * т.е. эпики должны добавляться в пустой менеджер первыми.
+     *
+     * @param count - число подзадач
+     * @return - список новых подзадач
+     */
+    public List<Subtask> subtasks(int count) {
+        Random random = new Random(seed + 1);
+        List<LocalDateTime> startTimes = startTimes(count, random, 1);
+        List<Subtask> subtasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Subtask subtask = new Subtask(i / fanOut, "Подзадача №" + i, "Описание подзадачи №" + i,
+                    startTimes.get(i), Duration.ofMinutes(TASK_MINUTES));
+            subtask.setStatus(randomStatus(random));
+            subtasks.add(subtask);
+        }
+        return subtasks;
+    }
+
+    /**
+     * Заполнение менеджера задачами, эпиками и подзадачами
+     *
+     * @param manager - пустой менеджер задач
+     * @param count   - число задач и число подзадач
+     */
+    public void fill(TaskManager manager, int count) {
+        for (Epic epic : epics(count)) {
+            manager.addNewEpic(epic);
+        }
+        for (Subtask subtask : subtasks(count)) {
+            manager.addNewSubtask(subtask);
+        }
+        for (Task task : tasks(count)) {
+            manager.addNewTask(task);
+        }
+    }
+
+    /**
+     * Времена начала в непересекающихся интервалах шкалы, перемешанные в случайном порядке.
+     * Задачи и подзадачи занимают чередующиеся интервалы, чтобы не пересекаться между собой.
+     *
+     * @param count  - число задач
+     * @param random - генератор случайных чисел
+     * @param parity - 0 для четных интервалов, 1 для нечетных
+     * @return - список времен начала
+     */
+    private List<LocalDateTime> startTimes(int count, Random random, int parity) {
+        long slotMinutes = Math.max(TASK_MINUTES + 1, Math.round(TASK_MINUTES / timeDensity));
+        List<LocalDateTime> startTimes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            startTimes.add(TIMELINE_START.plusMinutes(slotMinutes * (2L * i + parity)));
+        }
+        Collections.shuffle(startTimes, random);
+        return startTimes;
+    }
+
+    private TaskStatus randomStatus(Random random) {
+        return TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+    }
+}
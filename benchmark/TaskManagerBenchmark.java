@@ -0,0 +1,174 @@
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Замеры производительности основных операций менеджеров задач.
+ * Каждый сценарий выполняется с прогревом, затем замеряется несколько итераций.
+ * Подготовка данных для итерации в замер не входит.
+ * <p>
+ * Параметры запуска (все необязательные):
+ * sizes=1000,10000,100000,1000000 fanOut=10 density=0.5 seed=42 warmup=3 iterations=5
+ * <p>
+ * Для объема 1000000 нужна куча не меньше 4 ГБ (-Xmx4g), для меньших объемов достаточно
+ * размера кучи по умолчанию.
+ */
+public class TaskManagerBenchmark {
+    // результат вычислений, который не позволяет JIT-компилятору удалить замеряемый код
+    private static volatile long sink;
+
+    private final BenchmarkDataGenerator generator;
+    private final int warmupIterations;
+    private final int measurementIterations;
+
+    public TaskManagerBenchmark(BenchmarkDataGenerator generator, int warmupIterations,
+                                int measurementIterations) {
+        this.generator = generator;
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String sizes = "1000,10000,100000,1000000";
+        int fanOut = 10;
+        double density = 0.5;
+        long seed = 42;
+        int warmup = 3;
+        int iterations = 5;
+
+        for (String arg : args) {
+            String[] tokens = arg.split("=", 2);
+            if (tokens.length < 2) {
+                throw new IllegalArgumentException("Параметр должен иметь вид имя=значение: " + arg);
+            }
+            switch (tokens[0]) {
+                case "sizes" -> sizes = tokens[1];
+                case "fanOut" -> fanOut = Integer.parseInt(tokens[1]);
+                case "density" -> density = Double.parseDouble(tokens[1]);
+                case "seed" -> seed = Long.parseLong(tokens[1]);
+                case "warmup" -> warmup = Integer.parseInt(tokens[1]);
+                case "iterations" -> iterations = Integer.parseInt(tokens[1]);
+                default -> throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+            }
+        }
+
+        TaskManagerBenchmark benchmark = new TaskManagerBenchmark(
+                new BenchmarkDataGenerator(fanOut, density, seed), warmup, iterations);
+        System.out.printf("fanOut=%d density=%.2f seed=%d warmup=%d iterations=%d%n",
+                fanOut, density, seed, warmup, iterations);
+        for (String size : sizes.split(",")) {
+            benchmark.runAll(Integer.parseInt(size.trim()));
+        }
+    }
+
+    /**
+     * Выполнение всех сценариев для заданного объема данных
+     *
+     * @param size - число задач и число подзадач в менеджере
+     */
+    public void runAll(int size) throws IOException {
+        run("addNewTask", size, size, count -> {
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            List<Task> tasks = generator.tasks(count);
+            return () -> {
+                for (Task task : tasks) {
+                    sink += manager.addNewTask(task);
+                }
+            };
+        });
+
+        run("addNewSubtask", size, size, count -> {
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            for (Epic epic : generator.epics(count)) {
+                manager.addNewEpic(epic);
+            }
+            List<Subtask> subtasks = generator.subtasks(count);
+            return () -> {
+                for (Subtask subtask : subtasks) {
+                    sink += manager.addNewSubtask(subtask);
+                }
+            };
+        });
+
+        final int reads = 100;
+        run("getPrioritizedTasks", size, reads, count -> {
+            InMemoryTaskManager manager = filledManager(count);
+            return () -> {
+                for (int i = 0; i < reads; i++) {
+                    sink += manager.getPrioritizedTasks().size();
+                }
+            };
+        });
+
+        run("getHistory", size, reads, count -> {
+            InMemoryTaskManager manager = filledManager(count);
+            for (Task task : manager.getTaskList()) {
+                manager.getTask(task.getId());
+            }
+            return () -> {
+                for (int i = 0; i < reads; i++) {
+                    sink += manager.getHistory().size();
+                }
+            };
+        });
+
+        File file = File.createTempFile("benchmark", ".csv");
+        file.deleteOnExit();
+        run("FileBackedTaskManager.save", size, 1, count -> {
+            FileBackedTaskManager manager = new FileBackedTaskManager(file.getAbsolutePath());
+            manager.setLoadFlag(true); // заполняем без сохранения после каждого изменения
+            generator.fill(manager, count);
+            manager.setLoadFlag(false);
+            return manager::save;
+        });
+
+        run("FileBackedTaskManager.loadFromFile", size, 1,
+                count -> () -> sink += FileBackedTaskManager.loadFromFile(file).getNumberOfObjects());
+        file.delete();
+    }
+
+    private InMemoryTaskManager filledManager(int count) {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        generator.fill(manager, count);
+        return manager;
+    }
+
+    /**
+     * Замер сценария
+     *
+     * @param name       - наименование сценария
+     * @param size       - объем данных
+     * @param operations - число операций, выполняемых за одну итерацию
+     * @param setup      - подготовка данных итерации, возвращает замеряемое действие
+     */
+    private void run(String name, int size, int operations, IntFunction<Runnable> setup) {
+        for (int i = 0; i < warmupIterations; i++) {
+            setup.apply(size).run();
+        }
+
+        List<Long> times = new ArrayList<>(measurementIterations);
+        for (int i = 0; i < measurementIterations; i++) {
+            Runnable action = setup.apply(size);
+            long start = System.nanoTime();
+            action.run();
+            times.add(System.nanoTime() - start);
+        }
+
+        long total = 0;
+        long best = Long.MAX_VALUE;
+        for (long time : times) {
+            total += time;
+            best = Math.min(best, time);
+        }
+        double averageMillis = total / 1e6 / times.size();
+        double opsPerSecond = operations * 1e9 * times.size() / total;
+        System.out.printf("%-36s size=%-8d avg=%10.3f ms  best=%10.3f ms  %14.1f ops/s%n",
+                name, size, averageMillis, best / 1e6, opsPerSecond);
+    }
+}
@@ -0,0 +1,465 @@
+import query.QueryPlan;
+import query.QueryResult;
+import query.TaskQuery;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Потокобезопасный менеджер задач.
+ * Задачи хранятся в таблицах на основе ConcurrentHashMap, идентификаторы выдаются
+ * атомарным счетчиком, поэтому чтение задач, списков и счетчиков выполняется без блокировок.
+ * <p>
+ * Блокировки берутся только там, где изменяются общие для нескольких задач данные:
+ * <ul>
+ * <li>проверка пересечения времени и запись в отсортированное хранилище выполняются
+ * под блокировкой хранилища по времени;</li>
+ * <li>подзадачи, список подзадач и показатели эпика изменяются под блокировкой эпика -
+ * одной из STRIPES блокировок, выбираемой по идентификатору эпика. Изменения задач
+ * берут блокировку по идентификатору задачи.</li>
+ * </ul>
+ * Поэтому изменения подзадач разных эпиков выполняются параллельно и ждут друг друга
+ * только на короткой проверке времени.
+ * <p>
+ * Пакетные операции, удаление всех задач, поиск и запросы работают с несколькими
+ * структурами сразу и выполняются под монопольной блокировкой, одиночные изменения
+ * берут эту блокировку в разделяемом режиме. Порядок взятия блокировок: общая,
+ * блокировки эпиков по возрастанию номера, блокировка хранилища по времени.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    // число блокировок эпиков, степень двойки
+    static final int STRIPES = 64;
+
+    // монопольная - для операций над многими задачами, разделяемая - для одиночных изменений
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock timeLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes;
+
+    public ConcurrentTaskManager() {
+        // история изменяется и при чтении задач, поэтому защищена отдельно
+        super(new SynchronizedHistoryManager(Managers.getDefaultHistory()), true);
+        stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // номер блокировки эпика или задачи с заданным идентификатором
+    static int stripeIndex(int id) {
+        return id & (STRIPES - 1);
+    }
+
+    @Override
+    public int addNewTask(Task newTask) {
+        // новый идентификатор еще никому не известен, блокировка задачи не нужна
+        structureLock.readLock().lock();
+        try {
+            return super.addNewTask(newTask);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int addNewEpic(Epic newEpic) {
+        structureLock.readLock().lock();
+        try {
+            return super.addNewEpic(newEpic);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int addNewSubtask(Subtask newSubtask) {
+        if (newSubtask == null) {
+            return super.addNewSubtask(null);
+        }
+        structureLock.readLock().lock();
+        lockStripes(newSubtask.getEpicId(), newSubtask.getEpicId());
+        try {
+            return super.addNewSubtask(newSubtask);
+        } finally {
+            unlockStripes(newSubtask.getEpicId(), newSubtask.getEpicId());
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int updateTask(Task task) {
+        structureLock.readLock().lock();
+        lockStripes(task.getId(), task.getId());
+        try {
+            return super.updateTask(task);
+        } finally {
+            unlockStripes(task.getId(), task.getId());
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int updateEpic(Epic newEpic) {
+        structureLock.readLock().lock();
+        lockStripes(newEpic.getId(), newEpic.getId());
+        try {
+            return super.updateEpic(newEpic);
+        } finally {
+            unlockStripes(newEpic.getId(), newEpic.getId());
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * При переносе подзадачи в другой эпик берутся блокировки обоих эпиков.
+     * Прежний эпик определяется до взятия блокировок, поэтому после их взятия
+     * проверяется, что подзадачу не перенесли параллельно в третий эпик.
+     */
+    @Override
+    public int updateSubtask(Subtask newSubtask) {
+        int id = newSubtask.getId();
+        int epicId = newSubtask.getEpicId();
+        structureLock.readLock().lock();
+        try {
+            while (true) {
+                int oldEpicId = currentEpicId(id, epicId);
+                lockStripes(oldEpicId, epicId);
+                try {
+                    if (currentEpicId(id, epicId) == oldEpicId) {
+                        return super.updateSubtask(newSubtask);
+                    }
+                } finally {
+                    unlockStripes(oldEpicId, epicId);
+                }
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeTask(Integer taskId) {
+        structureLock.readLock().lock();
+        lockStripes(taskId, taskId);
+        try {
+            super.removeTask(taskId);
+        } finally {
+            unlockStripes(taskId, taskId);
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeEpic(Integer epicId) {
+        structureLock.readLock().lock();
+        lockStripes(epicId, epicId);
+        try {
+            super.removeEpic(epicId);
+        } finally {
+            unlockStripes(epicId, epicId);
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeSubtask(Integer subtaskId) {
+        structureLock.readLock().lock();
+        try {
+            while (true) {
+                int epicId = currentEpicId(subtaskId, -1);
+                if (epicId < 0) {
+                    // подзадачи нет: поведение как у менеджера без блокировок
+                    super.removeSubtask(subtaskId);
+                    return;
+                }
+                lockStripes(epicId, epicId);
+                try {
+                    if (currentEpicId(subtaskId, -1) == epicId) {
+                        super.removeSubtask(subtaskId);
+                        return;
+                    }
+                } finally {
+                    unlockStripes(epicId, epicId);
+                }
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(Integer epicId) {
+        // список подзадач эпика изменяется под блокировкой эпика или под монопольной блокировкой
+        structureLock.readLock().lock();
+        lockStripes(epicId, epicId);
+        try {
+            return super.getSubtasksByEpic(epicId);
+        } finally {
+            unlockStripes(epicId, epicId);
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        timeLock.readLock().lock();
+        try {
+            return super.getPrioritizedTasks();
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAllTasks() {
+        lockAll();
+        try {
+            super.removeAllTasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeAllEpics() {
+        lockAll();
+        try {
+            super.removeAllEpics();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeAllSubtasks() {
+        lockAll();
+        try {
+            super.removeAllSubtasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<Integer> addNewBatch(List<? extends Task> tasks) {
+        lockAll();
+        try {
+            return super.addNewBatch(tasks);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<Integer> updateBatch(List<? extends Task> tasks) {
+        lockAll();
+        try {
+            return super.updateBatch(tasks);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void removeBatch(Collection<Integer> ids) {
+        lockAll();
+        try {
+            super.removeBatch(ids);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        timeLock.readLock().lock();
+        try {
+            return super.getTasksBetween(from, to);
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime from, int count) {
+        timeLock.readLock().lock();
+        try {
+            return super.getNextTasks(from, count);
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(Task after, int limit) {
+        timeLock.readLock().lock();
+        try {
+            return super.getPrioritizedPage(after, limit);
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime earliestStart,
+                                        LocalDateTime deadline, int maxSlots) {
+        timeLock.readLock().lock();
+        try {
+            return super.findFreeSlots(duration, earliestStart, deadline, maxSlots);
+        } finally {
+            timeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Поток читается уже после возврата из метода, поэтому строится
+     * по неизменяемому списку задач на момент вызова.
+     */
+    @Override
+    public Stream<Task> taskStream() {
+        return getTaskList().stream();
+    }
+
+    @Override
+    public Stream<Epic> epicStream() {
+        return getEpicList().stream();
+    }
+
+    @Override
+    public Stream<Subtask> subtaskStream() {
+        return getSubtaskList().stream();
+    }
+
+    @Override
+    public Stream<Task> historyStream() {
+        return getHistory().stream();
+    }
+
+    /**
+     * Найденные идентификаторы переводятся в задачи, а запросы читают хранилища,
+     * хранилище по времени и подзадачи эпиков, поэтому выполняются без параллельных изменений.
+     */
+    @Override
+    public List<Task> search(String query, int limit) {
+        lockAll();
+        try {
+            return super.search(query, limit);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public QueryResult query(TaskQuery query) {
+        lockAll();
+        try {
+            return super.query(query);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public QueryPlan explain(TaskQuery query) {
+        lockAll();
+        try {
+            return super.explain(query);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lockAll();
+        try {
+            super.clear();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void resetMainId() {
+        lockAll();
+        try {
+            super.resetMainId();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Проверка пересечения времени и запись выполняются под одной блокировкой,
+     * чтобы две задачи разных эпиков не заняли одно и то же время.
+     */
+    @Override
+    protected void addTaskToSortedMap(Task task) {
+        timeLock.writeLock().lock();
+        try {
+            super.addTaskToSortedMap(task);
+        } finally {
+            timeLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void removeFromSortedList(Task task) {
+        timeLock.writeLock().lock();
+        try {
+            super.removeFromSortedList(task);
+        } finally {
+            timeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Эпик, в котором сейчас находится подзадача
+     *
+     * @param subtaskId - идентификатор подзадачи
+     * @param absent    - результат, если подзадачи нет
+     * @return - идентификатор эпика
+     */
+    private int currentEpicId(int subtaskId, int absent) {
+        Task task = findTask(subtaskId);
+        return task instanceof Subtask ? ((Subtask) task).getEpicId() : absent;
+    }
+
+    // блокировки двух эпиков берутся по возрастанию номера, одна и та же - один раз
+    private void lockStripes(int id1, int id2) {
+        int index1 = stripeIndex(id1);
+        int index2 = stripeIndex(id2);
+        stripes[Math.min(index1, index2)].lock();
+        if (index1 != index2) {
+            stripes[Math.max(index1, index2)].lock();
+        }
+    }
+
+    private void unlockStripes(int id1, int id2) {
+        int index1 = stripeIndex(id1);
+        int index2 = stripeIndex(id2);
+        if (index1 != index2) {
+            stripes[Math.max(index1, index2)].unlock();
+        }
+        stripes[Math.min(index1, index2)].unlock();
+    }
+
+    // монопольная работа со всеми структурами менеджера
+    private void lockAll() {
+        structureLock.writeLock().lock();
+        timeLock.writeLock().lock();
+    }
+
+    private void unlockAll() {
+        timeLock.writeLock().unlock();
+        structureLock.writeLock().unlock();
+    }
+}
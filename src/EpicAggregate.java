@@ -0,0 +1,154 @@
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.TaskStatus;
+import util.IntHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+
+/**
+ * Накопительные показатели эпика по его подзадачам:
+ * число подзадач в каждом статусе, суммарная продолжительность,
+ * самое раннее время начала и самое позднее время завершения.
+ * Показатели обновляются при каждом изменении подзадачи без перебора всех подзадач эпика.
+ */
+public class EpicAggregate {
+    // вклад каждой подзадачи в показатели эпика на момент ее последнего изменения
+    private final IntHashMap<Contribution> contributions;
+    private final int[] statusCounts;
+    private long minutesOfDuration;
+    // времена начала и завершения подзадач с числом повторений
+    private final TreeMap<LocalDateTime, Integer> startTimes;
+    private final TreeMap<LocalDateTime, Integer> endTimes;
+
+    public EpicAggregate() {
+        contributions = new IntHashMap<>();
+        statusCounts = new int[TaskStatus.values().length];
+        startTimes = new TreeMap<>();
+        endTimes = new TreeMap<>();
+    }
+
+    /**
+     * Добавление или обновление подзадачи эпика
+     *
+     * @param subtask - подзадача
+     */
+    public void putSubtask(Subtask subtask) {
+        removeSubtask(subtask.getId());
+
+        Contribution contribution = new Contribution(subtask);
+        contributions.put(subtask.getId(), contribution);
+        statusCounts[contribution.status.ordinal()]++;
+        minutesOfDuration += contribution.minutes;
+        if (contribution.startTime != null) {
+            startTimes.merge(contribution.startTime, 1, Integer::sum);
+            endTimes.merge(contribution.endTime, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Удаление подзадачи из показателей эпика
+     *
+     * @param subtaskId - идентификатор подзадачи
+     */
+    public void removeSubtask(int subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) {
+            return;
+        }
+        statusCounts[contribution.status.ordinal()]--;
+        minutesOfDuration -= contribution.minutes;
+        if (contribution.startTime != null) {
+            decrement(startTimes, contribution.startTime);
+            decrement(endTimes, contribution.endTime);
+        }
+    }
+
+    public void clear() {
+        contributions.clear();
+        statusCounts[TaskStatus.NEW.ordinal()] = 0;
+        statusCounts[TaskStatus.IN_PROGRESS.ordinal()] = 0;
+        statusCounts[TaskStatus.DONE.ordinal()] = 0;
+        minutesOfDuration = 0;
+        startTimes.clear();
+        endTimes.clear();
+    }
+
+    public int getSubtaskCount() {
+        return contributions.size();
+    }
+
+    public int getStatusCount(TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    /**
+     * Расчет статуса эпика по числу подзадач в каждом статусе
+     *
+     * @return - статус эпика
+     */
+    public TaskStatus getStatus() {
+        int countNew = statusCounts[TaskStatus.NEW.ordinal()];
+        int countInProgress = statusCounts[TaskStatus.IN_PROGRESS.ordinal()];
+        int countDone = statusCounts[TaskStatus.DONE.ordinal()];
+
+        if (countInProgress == 0 && countDone == 0) {
+            return TaskStatus.NEW;
+        }
+        if (countNew == 0 && countInProgress == 0) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    /**
+     * Перенос рассчитанных показателей в объект эпика
+     *
+     * @param epic - эпик
+     */
+    public void applyTo(Epic epic) {
+        epic.setStatus(getStatus());
+        if (contributions.isEmpty()) {
+            epic.setStartTime(null);
+            epic.setEndTime(null);
+            epic.setDuration(null);
+            return;
+        }
+        if (startTimes.isEmpty()) {
+            epic.setStartTime(null);
+            epic.setEndTime(null);
+        } else {
+            epic.setStartTime(startTimes.firstKey());
+            epic.setEndTime(endTimes.lastKey());
+        }
+        epic.setDuration(Duration.ofMinutes(minutesOfDuration));
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Значения полей подзадачи, учтенные в показателях эпика.
+     * Сохраняются отдельно, т.к. объект подзадачи может быть изменен до ее обновления в менеджере.
+     */
+    private static class Contribution {
+        private final TaskStatus status;
+        private final long minutes;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+
+        private Contribution(Subtask subtask) {
+            status = subtask.getStatus();
+            minutes = subtask.getDuration() == null ? 0 : subtask.getDuration().toMinutes();
+            if (subtask.getStartTime() == null || subtask.getDuration() == null) {
+                startTime = null;
+                endTime = null;
+            } else {
+                startTime = subtask.getStartTime();
+                endTime = subtask.getEndTime();
+            }
+        }
+    }
+}
@@ -1,18 +1,63 @@
 import exceptions.LoadException;
 import exceptions.SaveException;
+import storage.BinaryTaskReader;
+import storage.BinaryTaskWriter;
+import storage.CsvTaskParser;
+import storage.DateTimeCodec;
+import storage.FileFormat;
+import storage.ParallelCsvLoader;
+import storage.SyncPolicy;
 import tasks.*;
 
 import java.io.*;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * класс менеджера задач с поддержной сохранения данных в файл и загрузки
  */
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    // расширение имени файла журнала изменений
+    public static final String JOURNAL_SUFFIX = ".journal";
+    // расширение имени временного файла, в который выполняется сохранение
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    // префиксы записей журнала изменений
+    private static final String JOURNAL_PUT = "PUT;";
+    private static final String JOURNAL_DELETE = "DEL;";
+    private static final String JOURNAL_CLEAR = "CLR;";
+
     private String fileName;
     private boolean loadInprogres;
+    private boolean journalMode;
+    private FileFormat fileFormat = FileFormat.CSV;
+    private SyncPolicy syncPolicy = SyncPolicy.DATA;
+
+    // фоновое сохранение: поток записи, признак несохраненных изменений и ошибка последней записи
+    private final Object fileLock = new Object();
+    // проверка и сброс признака изменений вместе с записью файла, flush() дожидается идущей записи
+    private final Object flushLock = new Object();
+    private long snapshotNumber;
+    private long writtenSnapshot;
+    private volatile ScheduledExecutorService saveExecutor;
+    private volatile boolean dirty;
+    private volatile SaveException backgroundSaveError;
 
     /**
      * Конструктор
@@ -32,38 +77,44 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     /**
-     * подготовка информации о задаче для записи в файл
+     * подготовка строки файла с указанием типа задачи
      *
      * @param task - задача
+     * @param type - тип задачи
      * @return - строка информации о задаче.
      */
-    private String toString(Task task) {
-        String row;
-        String startTime;
-        String duration;
-
-        try {
-            if (task.getStartTime() == null) {
-                startTime = "null";
-            } else {
-                startTime = task.getStartTime().format(Task.DATE_TIME_FORMATTER);
-            }
-            if (task.getDuration() == null) {
-                duration = "null";
-            } else {
-                duration = String.format("%d", task.getDuration().toMinutes());
-            }
+    private String toString(Task task, TaskType type) {
+        return appendRow(new StringBuilder(), task, type).toString();
+    }
 
-            row = String.format("%s;%s;%s;#type#;%s;%s;%s;",
-                    task.getId(),
-                    startTime,
-                    duration,
-                    task.getTitle(),
-                    task.getStatus(),
-                    task.getDescription());
-        } catch (Exception e) {
-            throw new SaveException("Ошибка сохранения в файл. "
-                    + e.getMessage(), fileName);
+    /**
+     * Запись строки файла с информацией о задаче
+     *
+     * @param row  - строка, в которую дописывается информация
+     * @param task - задача
+     * @param type - тип задачи
+     * @return - строка row
+     */
+    private StringBuilder appendRow(StringBuilder row, Task task, TaskType type) {
+        row.append(task.getId()).append(';');
+        if (task.getStartTime() == null) {
+            row.append("null");
+        } else {
+            DateTimeCodec.append(row, task.getStartTime());
+        }
+        row.append(';');
+        if (task.getDuration() == null) {
+            row.append("null");
+        } else {
+            row.append(task.getDuration().toMinutes());
+        }
+        row.append(';').append(type)
+                .append(';').append(task.getTitle())
+                .append(';').append(task.getStatus())
+                .append(';').append(task.getDescription())
+                .append(';');
+        if (type == TaskType.SUBTASK) {
+            row.append(((Subtask) task).getEpicId());
         }
         return row;
     }
@@ -79,39 +130,218 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             return;
         }
 
-        try (FileWriter fileWriter = new FileWriter(fileName)) {
-            // В первую строку файла записываем наименования полей.
-            fileWriter.write("id;DateTime;Duration(min);type;name;status;description;epic\n");
+        // снимок готовится под блокировкой менеджера, а записывается под блокировкой файла,
+        // блокировки не вкладываются друг в друга. Более старый снимок не записывается поверх нового.
+        byte[] data;
+        long snapshot;
+        synchronized (this) {
+            data = toBytes(fileFormat);
+            snapshot = ++snapshotNumber;
+        }
+        synchronized (fileLock) {
+            if (snapshot < writtenSnapshot) {
+                return;
+            }
+            writeFile(fileName, data);
+            writtenSnapshot = snapshot;
+
+            // все изменения из журнала вошли в снимок - журнал больше не нужен
+            File journal = new File(getJournalFileName());
+            if (journal.exists() && !journal.delete()) {
+                throw new SaveException("Ошибка удаления журнала изменений.",
+                        getJournalFileName());
+            }
+        }
+    }
 
-            // сохраняем задачи
-            String taskType = TaskType.TASK.toString();
+    /**
+     * Выгрузка информации о задачах в файл заданного формата.
+     * Файл данных менеджера и формат его сохранения не меняются.
+     *
+     * @param fileName - имя файла для выгрузки
+     * @param format   - формат файла
+     * @throws SaveException - исключение при ошибках работы с файлом
+     */
+    public void export(String fileName, FileFormat format) throws SaveException {
+        byte[] data;
+        synchronized (this) {
+            data = toBytes(format);
+        }
+        writeFile(fileName, data);
+    }
+
+    /**
+     * Подготовка содержимого файла данных в памяти.
+     * Запись на диск выполняется отдельно, без блокировки изменений задач.
+     *
+     * @param format - формат файла
+     * @return - содержимое файла
+     */
+    private byte[] toBytes(FileFormat format) throws SaveException {
+        if (format == FileFormat.BINARY) {
+            return toBinary();
+        }
+
+        // В первую строку файла записываем наименования полей.
+        StringBuilder data = new StringBuilder("id;DateTime;Duration(min);type;name;status;description;epic\n");
+
+        // сохраняем задачи
+        for (Task task : getTaskList()) {
+            appendRow(data, task, TaskType.TASK).append('\n');
+        }
+
+        // сохраняем эпики
+        for (Epic epic : getEpicList()) {
+            appendRow(data, epic, TaskType.EPIC).append('\n');
+        }
+
+        // сохраняем подзадачи
+        for (Subtask subtask : getSubtaskList()) {
+            appendRow(data, subtask, TaskType.SUBTASK).append('\n');
+        }
+        return data.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Подготовка содержимого двоичного файла данных
+     *
+     * @return - содержимое файла
+     */
+    private byte[] toBinary() throws SaveException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (BinaryTaskWriter writer = new BinaryTaskWriter(data)) {
             for (Task task : getTaskList()) {
-                fileWriter.write(toString(task).replaceFirst("#type#", taskType)
-                        + "\n");
+                writer.write(task);
             }
-
-            // сохраняем эпики
-            taskType = TaskType.EPIC.toString();
+            // эпики записываются раньше подзадач, т.к. при загрузке подзадача ссылается на эпик
             for (Epic epic : getEpicList()) {
-                fileWriter.write(toString(epic).replaceFirst("#type#", taskType)
-                        + "\n");
+                writer.write(epic);
             }
-
-            // сохраняем подзадачи
-            taskType = TaskType.SUBTASK.toString();
             for (Subtask subtask : getSubtaskList()) {
-                fileWriter.write(toString(subtask).replaceFirst("#type#", taskType)
-                        + subtask.getEpicId() + "\n");
+                writer.write(subtask);
             }
+            writer.finish();
+        } catch (IOException e) {
+            throw new SaveException("Ошибка сохранения в файл. "
+                    + e.getMessage(), fileName);
+        }
+        return data.toByteArray();
+    }
 
-            fileWriter.flush();
-
+    /**
+     * Запись подготовленного содержимого в файл.
+     * Содержимое пишется во временный файл рядом с файлом данных, который затем
+     * атомарно заменяет файл данных. При сбое во время записи файл данных остается прежним.
+     *
+     * @param fileName - имя файла
+     * @param data     - содержимое файла
+     */
+    private void writeFile(String fileName, byte[] data) throws SaveException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new SaveException("Не задано имя файла для сохранения.", fileName);
+        }
+        Path target = Paths.get(fileName).toAbsolutePath();
+        Path tempFile = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try {
+            if (Files.isDirectory(target)) {
+                throw new IOException("Указан каталог, а не файл.");
+            }
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (syncPolicy != SyncPolicy.NONE) {
+                    channel.force(syncPolicy == SyncPolicy.FULL);
+                }
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (syncPolicy == SyncPolicy.FULL) {
+                syncDirectory(target.getParent());
+            }
         } catch (IOException e) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // временный файл будет перезаписан при следующем сохранении
+            }
             throw new SaveException("Ошибка сохранения в файл. "
                     + e.getMessage(), fileName);
         }
     }
 
+    /**
+     * Запись на диск изменений каталога (новой ссылки на файл данных после замены).
+     * Не все операционные системы позволяют открыть каталог, в этом случае запись пропускается.
+     *
+     * @param directory - каталог файла данных
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // каталог нельзя открыть как файл (например, в Windows)
+        }
+    }
+
+    /**
+     * Сохранение одного изменения.
+     * В режиме фонового сохранения изменение только отмечается,
+     * в режиме журнала изменение дописывается в конец файла журнала,
+     * иначе файл данных перезаписывается целиком.
+     *
+     * @param record - запись журнала об изменении
+     */
+    private void saveChange(String record) {
+        saveChanges(List.of(record));
+    }
+
+    /**
+     * Сохранение группы изменений одной записью в файл
+     *
+     * @param records - записи журнала об изменениях
+     */
+    private void saveChanges(List<String> records) {
+        if (loadInprogres || records.isEmpty()) {
+            return;
+        }
+        if (saveExecutor != null) {
+            // сохранение будет выполнено в фоновом потоке
+            dirty = true;
+            return;
+        }
+        if (!journalMode) {
+            save();
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(getJournalFileName()),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            StringBuilder data = new StringBuilder();
+            for (String record : records) {
+                data.append(record).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncPolicy != SyncPolicy.NONE) {
+                channel.force(syncPolicy == SyncPolicy.FULL);
+            }
+        } catch (IOException e) {
+            throw new SaveException("Ошибка записи в журнал изменений. "
+                    + e.getMessage(), getJournalFileName());
+        }
+    }
+
     /**
      * Создание нового экземпляра менеджера задач на основе файла данных
      *
@@ -122,82 +352,114 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         FileBackedTaskManager manager;
         manager = new FileBackedTaskManager(file.getAbsolutePath());
 
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file))) {
-            LocalDateTime startTime;
-            Duration duration;
-
+        try {
             manager.setLoadFlag(true);
+            if (BinaryTaskReader.isBinaryFile(file)) {
+                // последующие сохранения выполняются в том же формате
+                manager.setFileFormat(FileFormat.BINARY);
+                manager.loadBinary(file);
+            } else {
+                manager.loadCsv(file);
+            }
+            manager.replayJournal(file);
+        } catch (IOException e) {
+            throw new LoadException("Ошибка загрузки данных из файла. "
+                    + e.getMessage(), file.getAbsolutePath().toString());
+        } finally {
+            manager.setLoadFlag(false); // сбрасываем признак выполнения загрузки
+            if (manager.getNumberOfObjects() > 0) {
+                manager.resetMainId();      // пересчитываем идентификатор задач в менеджере.
+            }
+        }
+        return manager;
+    }
+
+    /**
+     * Загрузка задач из текстового файла с разделителями.
+     * Строки разбираются параллельно частями файла, затем задачи восстанавливаются за один проход.
+     *
+     * @param file - файл с описанием задач
+     */
+    private void loadCsv(File file) throws IOException {
+        restore(new ParallelCsvLoader(file).load(), file.getAbsolutePath());
+    }
 
-            String line = bufferedReader.readLine();
-            if (line == null) {
-                manager.setLoadFlag(false);
-                return manager;
+    /**
+     * Загрузка задач из двоичного файла
+     *
+     * @param file - файл с описанием задач
+     */
+    private void loadBinary(File file) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try (BinaryTaskReader reader = new BinaryTaskReader(new FileInputStream(file))) {
+            Task task;
+            while ((task = reader.read()) != null) {
+                tasks.add(task);
             }
+        }
+        restore(tasks, file.getAbsolutePath());
+    }
+
+    /**
+     * Восстановление задачи из строки журнала изменений
+     *
+     * @param line   - строка с описанием задачи
+     * @param parser - разбор строк файла, из которого выполняется загрузка
+     */
+    private void loadLine(String line, CsvTaskParser parser) throws LoadException {
+        Task task = parser.parse(line);
+        if (task instanceof Subtask) {
+            updateSubtask((Subtask) task);
+        } else if (task instanceof Epic) {
+            updateEpic((Epic) task);
+        } else if (task != null) {
+            updateTask(task);
+        }
+    }
+
+    /**
+     * Применение к загруженному снимку изменений из журнала
+     *
+     * @param file - файл данных, для которого ведется журнал
+     */
+    private void replayJournal(File file) throws IOException {
+        File journal = new File(file.getAbsolutePath() + JOURNAL_SUFFIX);
+        if (!journal.exists()) {
+            return;
+        }
+
+        CsvTaskParser parser = new CsvTaskParser(journal.getAbsolutePath());
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(journal, StandardCharsets.UTF_8))) {
+            String line;
             while ((line = bufferedReader.readLine()) != null) {
-                if (!line.isBlank()) {
+                if (line.startsWith(JOURNAL_PUT)) {
+                    loadLine(line.substring(JOURNAL_PUT.length()), parser);
+                } else if (line.startsWith(JOURNAL_DELETE)) {
                     String[] tokens = line.split(";");
-                    if (tokens.length < 7) {
+                    int id = Integer.decode(tokens[2]);
+                    if (findTask(id) == null) {
+                        // задача уже удалена вместе со своим эпиком
                         continue;
                     }
-                    int id = Integer.decode(tokens[0]);
-                    try {
-                        if (tokens[1].toLowerCase().equals("null")) {
-                            startTime = null;
-                        } else {
-                            startTime = LocalDateTime.parse(tokens[1],
-                                    Task.DATE_TIME_FORMATTER);
-                        }
-                    } catch (DateTimeParseException e) {
-                        throw new LoadException("Ошибка чтения времени из файла. "
-                                + e.getMessage(), file.getAbsolutePath().toString());
+                    if (tokens[1].equals(TaskType.TASK.toString())) {
+                        removeTask(id);
+                    } else if (tokens[1].equals(TaskType.EPIC.toString())) {
+                        removeEpic(id);
+                    } else if (tokens[1].equals(TaskType.SUBTASK.toString())) {
+                        removeSubtask(id);
                     }
-                    if (tokens[2].toLowerCase().equals("null")) {
-                        duration = null;
-                    } else {
-                        duration = Duration.ofMinutes(Integer.decode(tokens[2]));
-                    }
-                    String taskType = tokens[3];
-                    String title = tokens[4];
-                    String status = tokens[5];
-                    String description = tokens[6];
-
+                } else if (line.startsWith(JOURNAL_CLEAR)) {
+                    String taskType = line.substring(JOURNAL_CLEAR.length());
                     if (taskType.equals(TaskType.TASK.toString())) {
-                        Task task = new Task(title, description);
-                        task.setId(id);
-                        task.setStatus(TaskStatus.valueOf(status));
-                        task.setStartTime(startTime);
-                        task.setDuration(duration);
-                        manager.updateTask(task);
+                        removeAllTasks();
                     } else if (taskType.equals(TaskType.EPIC.toString())) {
-                        Epic epic = new Epic(title, description);
-                        epic.setId(id);
-                        epic.setStatus(TaskStatus.valueOf(status));
-                        epic.setStartTime(startTime);
-                        epic.setDuration(duration);
-                        manager.updateEpic(epic);
+                        removeAllEpics();
                     } else if (taskType.equals(TaskType.SUBTASK.toString())) {
-                        int epicId = Integer.decode(tokens[7]);
-                        Epic epic = manager.getEpic(epicId);
-                        epic.addSubtask(id);
-                        Subtask subtask = new Subtask(epicId, title, description);
-                        subtask.setId(id);
-                        subtask.setStatus(TaskStatus.valueOf(status));
-                        subtask.setStartTime(startTime);
-                        subtask.setDuration(duration);
-                        manager.updateSubtask(subtask);
+                        removeAllSubtasks();
                     }
                 }
             }
-        } catch (IOException e) {
-            throw new LoadException("Ошибка загрузки данных из файла. "
-                    + e.getMessage(), file.getAbsolutePath().toString());
-        } finally {
-            manager.setLoadFlag(false); // сбрасываем признак выполнения загрузки
-            if (manager.getNumberOfObjects() > 0) {
-                manager.resetMainId();      // пересчитываем идентификатор задач в менеджере.
-            }
         }
-        return manager;
     }
 
     /**
@@ -210,81 +472,247 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     @Override
-    public int addNewTask(Task newTask) {
+    public synchronized int addNewTask(Task newTask) {
         int retId = super.addNewTask(newTask);
-        save();
+        if (retId >= 0) {
+            saveChange(JOURNAL_PUT + toString(newTask, TaskType.TASK));
+        }
         return retId;
     }
 
     @Override
-    public int addNewEpic(Epic newEpic) {
+    public synchronized int addNewEpic(Epic newEpic) {
         int retId = super.addNewEpic(newEpic);
-        save();
+        if (retId >= 0) {
+            saveChange(JOURNAL_PUT + toString(newEpic, TaskType.EPIC));
+        }
         return retId;
     }
 
     @Override
-    public int addNewSubtask(Subtask newSubtask) {
+    public synchronized int addNewSubtask(Subtask newSubtask) {
         int retId = super.addNewSubtask(newSubtask);
-        save();
+        if (retId >= 0) {
+            saveChange(JOURNAL_PUT + toString(newSubtask, TaskType.SUBTASK));
+        }
         return retId;
     }
 
     @Override
-    public int updateTask(Task task) {
+    public synchronized int updateTask(Task task) {
         int retId = super.updateTask(task);
-        save();
+        saveChange(JOURNAL_PUT + toString(task, TaskType.TASK));
         return retId;
     }
 
     @Override
-    public int updateEpic(Epic newEpic) {
+    public synchronized int updateEpic(Epic newEpic) {
         int retId = super.updateEpic(newEpic);
-        save();
+        saveChange(JOURNAL_PUT + toString(newEpic, TaskType.EPIC));
         return retId;
     }
 
     @Override
-    public int updateSubtask(Subtask newSubtask) {
+    public synchronized int updateSubtask(Subtask newSubtask) {
         int retId = super.updateSubtask(newSubtask);
-        save();
+        if (retId >= 0) {
+            saveChange(JOURNAL_PUT + toString(newSubtask, TaskType.SUBTASK));
+        }
         return retId;
     }
 
     @Override
-    public void removeTask(Integer taskId) {
+    public synchronized void removeTask(Integer taskId) {
         super.removeTask(taskId);
-        save();
+        saveChange(JOURNAL_DELETE + TaskType.TASK + ";" + taskId);
     }
 
     @Override
-    public void removeEpic(Integer epicId) {
+    public synchronized void removeEpic(Integer epicId) {
         super.removeEpic(epicId);
-        save();
+        saveChange(JOURNAL_DELETE + TaskType.EPIC + ";" + epicId);
     }
 
     @Override
-    public void removeSubtask(Integer subtaskId) {
+    public synchronized void removeSubtask(Integer subtaskId) {
         super.removeSubtask(subtaskId);
-        save();
+        saveChange(JOURNAL_DELETE + TaskType.SUBTASK + ";" + subtaskId);
     }
 
     @Override
-    public void removeAllTasks() {
+    public synchronized List<Integer> addNewBatch(List<? extends Task> tasks) {
+        List<Integer> ids = super.addNewBatch(tasks);
+        saveChanges(putRecords(tasks, ids));
+        return ids;
+    }
+
+    @Override
+    public synchronized List<Integer> updateBatch(List<? extends Task> tasks) {
+        List<Integer> ids = super.updateBatch(tasks);
+        saveChanges(putRecords(tasks, ids));
+        return ids;
+    }
+
+    @Override
+    public synchronized void removeBatch(Collection<Integer> ids) {
+        // в журнал попадают только задачи, которые удаляет каждый шаг:
+        // подзадачи удаленного раньше в списке эпика повторно не записываются
+        List<String> records = new ArrayList<>();
+        Set<Integer> removedIds = new HashSet<>();
+        for (Integer id : ids) {
+            Task task = findTask(id);
+            if (task == null || !removedIds.add(id)) {
+                continue;
+            }
+            records.add(JOURNAL_DELETE + typeOf(task) + ";" + id);
+            if (task instanceof Epic) {
+                for (PrimitiveIterator.OfInt iterator = ((Epic) task).subtaskIterator(); iterator.hasNext(); ) {
+                    removedIds.add(iterator.nextInt());
+                }
+            }
+        }
+        super.removeBatch(ids);
+        saveChanges(records);
+    }
+
+    /**
+     * Записи журнала о сохраненных задачах списка
+     *
+     * @param tasks - задачи, эпики и подзадачи
+     * @param ids   - результат сохранения каждого элемента списка
+     * @return - записи журнала
+     */
+    private List<String> putRecords(List<? extends Task> tasks, List<Integer> ids) {
+        List<String> records = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            if (ids.get(i) >= 0) {
+                Task task = tasks.get(i);
+                records.add(JOURNAL_PUT + toString(task, typeOf(task)));
+            }
+        }
+        return records;
+    }
+
+    private static TaskType typeOf(Task task) {
+        if (task instanceof Subtask) {
+            return TaskType.SUBTASK;
+        }
+        if (task instanceof Epic) {
+            return TaskType.EPIC;
+        }
+        return TaskType.TASK;
+    }
+
+    @Override
+    public synchronized void removeAllTasks() {
         super.removeAllTasks();
-        save();
+        saveChange(JOURNAL_CLEAR + TaskType.TASK);
     }
 
     @Override
-    public void removeAllEpics() {
+    public synchronized void removeAllEpics() {
         super.removeAllEpics();
-        save();
+        saveChange(JOURNAL_CLEAR + TaskType.EPIC);
     }
 
     @Override
-    public void removeAllSubtasks() {
+    public synchronized void removeAllSubtasks() {
         super.removeAllSubtasks();
-        save();
+        saveChange(JOURNAL_CLEAR + TaskType.SUBTASK);
+    }
+
+    /**
+     * Включение фонового сохранения.
+     * Изменения только отмечаются, а файл данных перезаписывается фоновым потоком
+     * не чаще одного раза за интервал, объединяя все изменения за это время.
+     * Журнал изменений в этом режиме не ведется.
+     * Для гарантированной записи изменений используются flush() или close().
+     *
+     * @param intervalMillis - интервал сохранения в миллисекундах, 0 - отключение фонового сохранения
+     */
+    public void setAsyncSave(long intervalMillis) {
+        ScheduledExecutorService executor = saveExecutor;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            saveExecutor = null;
+            flush();
+        }
+        if (intervalMillis <= 0) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-manager-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::saveInBackground,
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        saveExecutor = executor;
+    }
+
+    public boolean isAsyncSave() {
+        return saveExecutor != null;
+    }
+
+    /**
+     * Сохранение накопленных изменений фоновым потоком.
+     * Ошибка записи запоминается и передается при следующем вызове flush().
+     */
+    private void saveInBackground() {
+        try {
+            flushChanges();
+        } catch (SaveException e) {
+            backgroundSaveError = e;
+        }
+    }
+
+    /**
+     * Запись накопленных изменений в файл.
+     * Выполняется под отдельной блокировкой: если признак изменений уже сброшен
+     * другим потоком, но запись еще идет, вызов дожидается ее окончания.
+     * Блокировка менеджера берется внутри save(), поэтому изменения задач во время записи файла не ждут.
+     */
+    private void flushChanges() throws SaveException {
+        synchronized (flushLock) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            try {
+                save();
+            } catch (SaveException e) {
+                dirty = true; // повторим запись при следующей попытке
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Немедленная запись всех накопленных изменений в файл
+     *
+     * @throws SaveException - ошибка текущей или предыдущей фоновой записи
+     */
+    public void flush() throws SaveException {
+        SaveException error = backgroundSaveError;
+        backgroundSaveError = null;
+        flushChanges();
+        if (error != null && dirty) {
+            throw error;
+        }
+    }
+
+    /**
+     * Запись накопленных изменений и остановка фонового сохранения
+     */
+    @Override
+    public void close() throws SaveException {
+        setAsyncSave(0);
     }
 
     public String getSaveFileName() {
@@ -300,4 +728,57 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         this.fileName = fileName;
     }
 
+    public FileFormat getFileFormat() {
+        return fileFormat;
+    }
+
+    /**
+     * Изменяем формат файла для сохранения данных.
+     * При загрузке формат файла определяется автоматически.
+     *
+     * @param fileFormat - формат файла
+     */
+    public void setFileFormat(FileFormat fileFormat) {
+        this.fileFormat = fileFormat;
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Изменяем режим принудительной записи на диск файла данных и журнала изменений.
+     * NONE - быстрее всего, но изменения могут быть потеряны при сбое питания,
+     * DATA (по умолчанию) - содержимое файла на диске до замены файла данных,
+     * FULL - дополнительно запись метаданных файла и каталога.
+     *
+     * @param syncPolicy - режим записи на диск
+     */
+    public void setSyncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+    }
+
+    public String getJournalFileName() {
+        return fileName + JOURNAL_SUFFIX;
+    }
+
+    public boolean isJournalMode() {
+        return journalMode;
+    }
+
+    /**
+     * Включение режима журнала изменений.
+     * В режиме журнала каждое изменение дописывается одной строкой в файл журнала,
+     * а полный снимок данных записывается только при явном вызове save().
+     * При включении режима сохраняется исходный снимок данных.
+     *
+     * @param journalMode - признак ведения журнала изменений
+     */
+    public void setJournalMode(boolean journalMode) {
+        if (journalMode && !this.journalMode) {
+            save();
+        }
+        this.journalMode = journalMode;
+    }
+
 }
@@ -1,6 +1,7 @@
 import tasks.Task;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface HistoryManager {
     void add(Task task);
@@ -9,5 +10,10 @@ public interface HistoryManager {
 
     List<Task> getHistory();
 
+    // поток истории просмотров; по умолчанию по копии списка истории
+    default Stream<Task> stream() {
+        return getHistory().stream();
+    }
+
     void clear();
 }
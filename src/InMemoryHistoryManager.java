@@ -1,18 +1,41 @@
 import tasks.Task;
+import util.IntHashMap;
 import util.Node;
 import util.SimpleLinkedList;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryHistoryManager implements HistoryManager {
+    // число записей в истории по умолчанию
+    public static final int DEFAULT_CAPACITY = 1000;
+
     private final SimpleLinkedList<Task> historyList;
-    private final HashMap<Integer, Node<Task>> historyMap;
+    private final IntHashMap<Node<Task>> historyMap;
+    private final int capacity;
 
     public InMemoryHistoryManager() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Конструктор истории ограниченного размера.
+     * При заполнении истории самая старая запись вытесняется новой.
+     *
+     * @param capacity - максимальное число записей в истории
+     */
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер истории должен быть больше нуля: " + capacity);
+        }
         historyList = new SimpleLinkedList<>();
-        historyMap = new HashMap<>();
+        historyMap = new IntHashMap<>();
+        this.capacity = capacity;
     }
 
     /**
@@ -20,6 +43,10 @@ public class InMemoryHistoryManager implements HistoryManager {
      *  добавляем в список не сам объект, а копию.
      *  Копия будет сохранена в истории и не будет изменятся
      *  при дальнейшем изменении первоначальной задачи.
+     *  При повторном просмотре задачи переиспользуется узел списка.
+     *  Если поля задачи не изменились, в узле остается прежняя копия, и просмотр
+     *  не создает новых объектов. Иначе в узел записывается новая копия: прежняя копия
+     *  могла быть уже возвращена методом getHistory и не должна меняться.
      */
 
     /**
@@ -31,12 +58,39 @@ public class InMemoryHistoryManager implements HistoryManager {
     public void add(Task task) {
         if (task == null) return;
         int taskId = task.getId();
-        Node<Task> newNode = new Node(null, new Task(task), null);
-        if (historyMap.containsKey(taskId)) {
-            historyList.removeNode(historyMap.get(taskId));
+        Node<Task> node = historyMap.get(taskId);
+        if (node != null) {
+            historyList.removeNode(node);
+            if (!sameFields(task, node.getData())) {
+                node.setData(new Task(task));
+            }
+        } else if (historyList.size() >= capacity) {
+            // вытесняем самую старую запись и переиспользуем ее узел
+            node = historyList.getFirstNode();
+            historyList.removeNode(node);
+            historyMap.remove(node.getData().getId());
+            node.setData(new Task(task));
+        } else {
+            node = new Node<>(null, new Task(task), null);
         }
-        historyMap.put(taskId, newNode);
-        historyList.addLastNode(newNode);
+        historyMap.put(taskId, node);
+        historyList.addLastNode(node);
+    }
+
+    /**
+     * Сравнение задачи с ее копией в истории по всем копируемым полям
+     *
+     * @param task - задача
+     * @param copy - копия задачи в истории
+     * @return - true, если копия соответствует задаче
+     */
+    private static boolean sameFields(Task task, Task copy) {
+        return task.getId() == copy.getId()
+                && Objects.equals(task.getTitle(), copy.getTitle())
+                && Objects.equals(task.getDescription(), copy.getDescription())
+                && task.getStatus() == copy.getStatus()
+                && Objects.equals(task.getStartTime(), copy.getStartTime())
+                && Objects.equals(task.getDuration(), copy.getDuration());
     }
 
     /**
@@ -45,9 +99,9 @@ public class InMemoryHistoryManager implements HistoryManager {
      * @param taskId - идентификатор задачи
      */
     public void remove(int taskId) {
-        if (historyMap.containsKey(taskId)) {
-            historyList.removeNode(historyMap.get(taskId));
-            historyMap.remove(taskId);
+        Node<Task> node = historyMap.remove(taskId);
+        if (node != null) {
+            historyList.removeNode(node);
         }
     }
 
@@ -65,8 +119,24 @@ public class InMemoryHistoryManager implements HistoryManager {
         return taskList;
     }
 
+    /**
+     * Поток истории просмотров без копирования списка истории.
+     * Поток должен быть прочитан до следующего изменения истории.
+     *
+     * @return - поток просмотренных задач
+     */
+    @Override
+    public Stream<Task> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(historyList.iterator(), historyList.size(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
     public void clear() {
         historyList.clear();
         historyMap.clear();
     }
+
+    public int getCapacity() {
+        return capacity;
+    }
 }
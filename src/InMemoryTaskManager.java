@@ -1,21 +1,41 @@
+import exceptions.LoadException;
 import exceptions.TaskCrossTimeException;
+import query.QueryPlan;
+import query.QueryResult;
+import query.TaskQuery;
 import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
 import tasks.TaskStatus;
+import tasks.TaskType;
+import tasks.TimeSlot;
+import util.ConcurrentIntMap;
+import util.IntHashMap;
+import util.IntMap;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final Map<Integer, Task> taskList;
-    private final Map<Integer, Epic> epicList;
-    private final Map<Integer, Subtask> subtaskList;
-    private Integer idMain = 0;
-    private final Map<Task, String> tasksSortedByTime;
-    private final HistoryManager viewHistory = Managers.getDefaultHistory();
+    // наибольшее число идентификаторов в сообщении об ошибке
+    private static final int MAX_REPORTED_IDS = 20;
+
+    // хранилища с ключами int без упаковки идентификаторов и с индексом по статусу
+    private final TaskStore<Task> taskList;
+    private final TaskStore<Epic> epicList;
+    private final TaskStore<Subtask> subtaskList;
+    // индекс слов заголовков и описаний задач всех типов
+    private final TextIndex textIndex;
+    private final TaskQueryEngine queryEngine;
+    private final IntMap<EpicAggregate> epicAggregates;
+    // следующий идентификатор, выдается без блокировки при параллельном добавлении задач
+    private final AtomicInteger idMain = new AtomicInteger();
+    // хранилище задач по времени начала с записями, не зависящими от изменения объектов задач
+    private final TaskTimeIndex tasksSortedByTime;
+    private final HistoryManager viewHistory;
 
     // компаратор для упоорядочивания задач по ремени запуска,
     // а при совпадении по возрастанию идентификатора.
@@ -25,10 +45,37 @@ public class InMemoryTaskManager implements TaskManager {
 
     // Инициализируем переменные в конструкторе
     public InMemoryTaskManager() {
-        taskList = new HashMap<>();
-        epicList = new HashMap<>();
-        subtaskList = new HashMap<>();
-        tasksSortedByTime = new TreeMap<>(taskComparator);
+        this(Managers.getDefaultHistory());
+    }
+
+    /**
+     * Конструктор с заданным менеджером истории просмотров
+     *
+     * @param viewHistory - менеджер истории просмотров
+     */
+    public InMemoryTaskManager(HistoryManager viewHistory) {
+        this(viewHistory, false);
+    }
+
+    /**
+     * Конструктор с выбором таблиц для хранения задач
+     *
+     * @param viewHistory - менеджер истории просмотров
+     * @param concurrent  - хранить задачи в таблицах для параллельного изменения из нескольких потоков
+     */
+    protected InMemoryTaskManager(HistoryManager viewHistory, boolean concurrent) {
+        this.viewHistory = viewHistory;
+        textIndex = new TextIndex();
+        taskList = new TaskStore<>(textIndex, newMap(concurrent));
+        epicList = new TaskStore<>(textIndex, newMap(concurrent));
+        subtaskList = new TaskStore<>(textIndex, newMap(concurrent));
+        epicAggregates = newMap(concurrent);
+        tasksSortedByTime = new TaskTimeIndex();
+        queryEngine = new TaskQueryEngine(taskList, epicList, subtaskList, tasksSortedByTime, textIndex);
+    }
+
+    private static <V> IntMap<V> newMap(boolean concurrent) {
+        return concurrent ? new ConcurrentIntMap<>() : new IntHashMap<>();
     }
 
     // Метод добавления новой задачи
@@ -37,10 +84,10 @@ public class InMemoryTaskManager implements TaskManager {
         if (newTask == null) {
             return -1;
         }
-        Integer id = idMain++;
+        Integer id = idMain.getAndIncrement();
         newTask.setId(id);
-        taskList.put(id, newTask);
         addTaskToSortedMap(newTask);
+        taskList.put(id, newTask);
         return id;
     }
 
@@ -50,9 +97,10 @@ public class InMemoryTaskManager implements TaskManager {
         if (newEpic == null) {
             return -1;
         }
-        Integer id = idMain++;
+        Integer id = idMain.getAndIncrement();
         newEpic.setId(id);
         epicList.put(id, newEpic);
+        epicAggregates.put(id, new EpicAggregate());
         return id;
     }
 
@@ -66,12 +114,13 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             return -2;
         }
-        Integer id = idMain++;
+        Integer id = idMain.getAndIncrement();
         newSubtask.setId(id);
+        addTaskToSortedMap(newSubtask);
         subtaskList.put(id, newSubtask);
         epic.addSubtask(newSubtask.getId());
+        getEpicAggregate(epic.getId()).putSubtask(newSubtask);
         setStatusEpic(epic.getId());
-        addTaskToSortedMap(newSubtask);
         return id;
     }
 
@@ -109,8 +158,8 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public int updateTask(Task task) {
         int id = task.getId();
-        taskList.put(id, task);
         addTaskToSortedMap(task);
+        taskList.put(id, task);
         return id;
     }
 
@@ -118,8 +167,11 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public int updateEpic(Epic newEpic) {
         int id = newEpic.getId();
-        epicList.put(id, newEpic);
-        newEpic.reloadSubtakList(getEpic(id).getSubtasks());
+        // список подзадач переносим из заменяемого эпика
+        Epic oldEpic = epicList.put(id, newEpic);
+        if (oldEpic != null) {
+            newEpic.reloadSubtakList(oldEpic);
+        }
         setStatusEpic(id);
         return id;
     }
@@ -128,7 +180,8 @@ public class InMemoryTaskManager implements TaskManager {
      * Обновление объекта Subtask.
      * проверяем _________________
      * _ существование соответствующего эпика. Если не найдены, то возвращаем  код меньше 0.
-     * Если и эпик и подзадача существуют заменяем объект подзадачи на новый
+     * Если и эпик и подзадача существуют заменяем объект подзадачи на новый.
+     * При смене эпика подзадача переносится в список подзадач нового эпика.
      *
      * @param newSubtask - идентификатор объекта, содержащий новую информацию
      * @return - id обновленно подзадачи, или меньше нуля если произошла ошибка
@@ -140,63 +193,47 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epicList.containsKey(epicId)) {
             return -2;
         }
-        subtaskList.put(id, newSubtask);
-        setStatusEpic(epicId);
         addTaskToSortedMap(newSubtask);
+        Subtask oldSubtask = subtaskList.put(id, newSubtask);
+        if (oldSubtask != null && !oldSubtask.getEpicId().equals(epicId)) {
+            removeSubtaskFromEpic(oldSubtask.getEpicId(), id);
+        }
+        epicList.get(epicId).addSubtask(id);
+        getEpicAggregate(epicId).putSubtask(newSubtask);
+        setStatusEpic(epicId);
         return id;
     }
 
     /**
-     * Пересчет статуса эпика по указанному идентификатору
+     * Пересчет статуса, времени начала и завершения эпика по указанному идентификатору.
+     * Показатели берутся из накопительных данных эпика без перебора его подзадач.
      *
      * @param epicId- идентификатор объекта, содержащий новую информацию
      */
     private void setStatusEpic(Integer epicId) {
-        if (!epicList.containsKey(epicId)) {
-            return;
-        }
         Epic epic = epicList.get(epicId);
-        setEpicTime(epicId);
-
-        if (epic.getSubtasks().isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
-        }
-
-        int countNew = 0;
-        int countInProgress = 0;
-        int countDone = 0;
-        for (Integer idSubtask : epic.getSubtasks()) {
-            TaskStatus status = subtaskList.get(idSubtask).getStatus();
-            if (status == TaskStatus.NEW) {
-                countNew++;
-            }
-            if (status == TaskStatus.IN_PROGRESS) {
-                countInProgress++;
-            }
-            if (status == TaskStatus.DONE) {
-                countDone++;
-            }
-        }
-
-        if (countNew > 0 && countInProgress == 0 && countDone == 0) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
-        }
-
-        if (countNew == 0 && countInProgress == 0 && countDone > 0) {
-            epic.setStatus(TaskStatus.DONE);
+        if (epic == null) {
             return;
         }
-
-        epic.setStatus(TaskStatus.IN_PROGRESS);
+        getEpicAggregate(epicId).applyTo(epic);
+        // статус эпика рассчитывается в самом объекте, поэтому индекс по статусу обновляется отдельно
+        epicList.updateStatus(epicId);
     }
 
+    /**
+     * Получение накопительных показателей эпика.
+     * Для эпика, загруженного без добавления через addNewEpic, показатели создаются при первом обращении.
+     *
+     * @param epicId - идентификатор эпика
+     * @return - показатели эпика
+     */
+    private EpicAggregate getEpicAggregate(Integer epicId) {
+        return epicAggregates.computeIfAbsent(epicId, key -> new EpicAggregate());
+    }
 
     @Override
     public void removeTask(Integer taskId) {
-        Task task = taskList.get(taskId);
-        tasksSortedByTime.remove(task);
+        removeFromSortedList(taskList.get(taskId));
         taskList.remove(taskId);
         viewHistory.remove(taskId);
     }
@@ -211,13 +248,14 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epicList.containsKey(epicId)) {
             return;
         }
-        for (Integer idSubtask : epicList.get(epicId).getSubtasks()) {
-            Task task = subtaskList.get(idSubtask);
-            tasksSortedByTime.remove(task);
+        for (PrimitiveIterator.OfInt iterator = epicList.get(epicId).subtaskIterator(); iterator.hasNext(); ) {
+            int idSubtask = iterator.nextInt();
+            removeFromSortedList(subtaskList.get(idSubtask));
             subtaskList.remove(idSubtask);
             viewHistory.remove(idSubtask);
         }
         epicList.remove(epicId);
+        epicAggregates.remove(epicId);
         viewHistory.remove(epicId);
     }
 
@@ -230,36 +268,205 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public void removeSubtask(Integer subtaskId) {
-        Task task = subtaskList.get(subtaskId);
-        tasksSortedByTime.remove(task);
+        removeFromSortedList(subtaskList.get(subtaskId));
 
         Integer epicId = subtaskList.get(subtaskId).getEpicId();
-        epicList.get(epicId).removeSubtask(subtaskId);
+        removeSubtaskFromEpic(epicId, subtaskId);
         subtaskList.remove(subtaskId);
         viewHistory.remove(subtaskId);
+    }
+
+    /**
+     * Исключение подзадачи из списка подзадач эпика с пересчетом статуса эпика
+     *
+     * @param epicId    - идентификатор эпика
+     * @param subtaskId - идентификатор подзадачи
+     */
+    private void removeSubtaskFromEpic(Integer epicId, Integer subtaskId) {
+        Epic epic = epicList.get(epicId);
+        if (epic == null) {
+            return;
+        }
+        epic.removeSubtask(subtaskId);
+        getEpicAggregate(epicId).removeSubtask(subtaskId);
         setStatusEpic(epicId);
     }
 
+    /**
+     * Списки задач, эпиков и подзадач неизменяемы и не копируются при каждом чтении:
+     * пока хранилище не изменяется, возвращается один и тот же список.
+     */
     @Override
     public List<Task> getTaskList() {
-        return new ArrayList<>(taskList.values());
+        return taskList.snapshot();
     }
 
     @Override
     public List<Epic> getEpicList() {
-        return new ArrayList<>(epicList.values());
+        return epicList.snapshot();
     }
 
     @Override
-    public ArrayList<Subtask> getSubtaskList() {
-        return new ArrayList<>(subtaskList.values());
+    public List<Subtask> getSubtaskList() {
+        return subtaskList.snapshot();
+    }
+
+    @Override
+    public List<Task> getTaskPage(Integer afterId, int limit) {
+        return page(taskList, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicPage(Integer afterId, int limit) {
+        return page(epicList, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtaskPage(Integer afterId, int limit) {
+        return page(subtaskList, afterId, limit);
+    }
+
+    /**
+     * Страница хранилища по возрастанию идентификатора.
+     * Идентификаторы выдаются по порядку и общие для задач всех типов, поэтому обычно
+     * страница собирается перебором идентификаторов после afterId. Если задач этого типа
+     * намного меньше, чем оставшихся идентификаторов, перебираются задачи хранилища,
+     * из которых отбираются limit задач с наименьшими идентификаторами.
+     *
+     * @param store   - хранилище задач одного типа
+     * @param afterId - идентификатор последней задачи предыдущей страницы, null - первая страница
+     * @param limit   - размер страницы, не меньше нуля
+     * @return - задачи по возрастанию идентификатора
+     */
+    private <T extends Task> List<T> page(TaskStore<T> store, Integer afterId, int limit) {
+        checkLimit(limit);
+        int fromId = afterId == null ? 0 : Math.max(0, afterId + 1);
+        int pageSize = Math.min(limit, store.size());
+        final int nextId = idMain.get();
+        List<T> page = new ArrayList<>(pageSize);
+        if (pageSize == 0 || fromId >= nextId) {
+            return page;
+        }
+        if ((long) nextId - fromId <= 4L * store.size()) {
+            for (int id = fromId; id < nextId && page.size() < limit; id++) {
+                T task = store.get(id);
+                if (task != null) {
+                    page.add(task);
+                }
+            }
+            return page;
+        }
+
+        // отбор limit наименьших идентификаторов: в вершине кучи наибольший из отобранных
+        PriorityQueue<T> selected = new PriorityQueue<>(pageSize,
+                Comparator.comparingInt(Task::getId).reversed());
+        for (T task : store.values()) {
+            int id = task.getId();
+            if (id < fromId || id >= nextId) {
+                continue;
+            }
+            if (selected.size() < limit) {
+                selected.add(task);
+            } else if (id < selected.peek().getId()) {
+                selected.poll();
+                selected.add(task);
+            }
+        }
+        page.addAll(selected);
+        page.sort(Comparator.comparingInt(Task::getId));
+        return page;
+    }
+
+    /**
+     * Потоки читают хранилище напрямую и должны быть прочитаны до следующего изменения менеджера,
+     * иначе чтение завершится ConcurrentModificationException.
+     */
+    @Override
+    public Stream<Task> taskStream() {
+        return taskList.values().stream();
+    }
+
+    @Override
+    public Stream<Epic> epicStream() {
+        return epicList.values().stream();
+    }
+
+    @Override
+    public Stream<Subtask> subtaskStream() {
+        return subtaskList.values().stream();
+    }
+
+    @Override
+    public Stream<Task> historyStream() {
+        return viewHistory.stream();
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(TaskStatus status) {
+        return taskList.getByStatus(status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(TaskStatus status) {
+        return epicList.getByStatus(status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return subtaskList.getByStatus(status);
+    }
+
+    @Override
+    public int getCount(TaskType type) {
+        return store(type).size();
+    }
+
+    @Override
+    public int getCount(TaskType type, TaskStatus status) {
+        return store(type).countByStatus(status);
+    }
+
+    /**
+     * Поиск по индексу слов без перебора задач.
+     * Индекс строится при первом поиске.
+     */
+    @Override
+    public List<Task> search(String query, int limit) {
+        if (!textIndex.isBuilt()) {
+            textIndex.build(List.of(taskList.values(), epicList.values(), subtaskList.values()));
+        }
+        int[] ids = textIndex.search(query, limit);
+        List<Task> tasks = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            tasks.add(findTask(id));
+        }
+        return tasks;
+    }
+
+    @Override
+    public QueryResult query(TaskQuery query) {
+        return queryEngine.execute(query);
+    }
+
+    @Override
+    public QueryPlan explain(TaskQuery query) {
+        return queryEngine.plan(query);
+    }
+
+    // хранилище задач заданного типа
+    private TaskStore<? extends Task> store(TaskType type) {
+        return switch (type) {
+            case TASK -> taskList;
+            case EPIC -> epicList;
+            case SUBTASK -> subtaskList;
+        };
     }
 
     // Удаление всех объектов класса Task
     @Override
     public void removeAllTasks() {
         for (Task task : taskList.values()) {
-            tasksSortedByTime.remove(task);
+            removeFromSortedList(task);
             viewHistory.remove(task.getId());
         }
         taskList.clear();
@@ -273,34 +480,45 @@ public class InMemoryTaskManager implements TaskManager {
         }
         removeAllSubtasks();
         epicList.clear();
+        epicAggregates.clear();
     }
 
     // Удаление всех объектов класса Subtask
     @Override
     public void removeAllSubtasks() {
-        for (Epic epic : getEpicList()) {
+        for (Epic epic : epicList.values()) {
             epic.removeAllSubtasks();
+            getEpicAggregate(epic.getId()).clear();
+            setStatusEpic(epic.getId());
         }
         for (Subtask subtask : subtaskList.values()) {
             viewHistory.remove(subtask.getId());
-            tasksSortedByTime.remove(subtask);
+            removeFromSortedList(subtask);
         }
         subtaskList.clear();
     }
 
     /**
-     * Получение списка всех подзадач длля заданного эпика
+     * Получение списка всех подзадач длля заданного эпика.
+     * Подзадачи выбираются по списку идентификаторов эпика без перебора всех подзадач.
      *
      * @param epicId - идентификатор эпика
      * @return - список подзадач
      */
     @Override
     public List<Subtask> getSubtasksByEpic(Integer epicId) {
-        List<Subtask> subtasks = new ArrayList<>();
+        Epic epic = epicList.get(epicId);
+        if (epic == null) {
+            return new ArrayList<>();
+        }
 
-        subtasks = subtaskList.values().stream()
-                .filter((Subtask subtask) -> subtask.getEpicId() == epicId)
-                .collect(Collectors.toList());
+        List<Subtask> subtasks = new ArrayList<>(epic.getSubtaskCount());
+        for (PrimitiveIterator.OfInt iterator = epic.subtaskIterator(); iterator.hasNext(); ) {
+            Subtask subtask = subtaskList.get(iterator.nextInt());
+            if (subtask != null) {
+                subtasks.add(subtask);
+            }
+        }
         return subtasks;
     }
 
@@ -319,7 +537,7 @@ public class InMemoryTaskManager implements TaskManager {
         removeAllTasks();
         removeAllEpics();
         tasksSortedByTime.clear();
-        idMain = 0;
+        idMain.set(0);
     }
 
     /**
@@ -327,58 +545,327 @@ public class InMemoryTaskManager implements TaskManager {
      */
     public void resetMainId() {
         int maxId = 0;
-        for (int i : taskList.keySet()) {
-            if (i > maxId) maxId = i;
+        for (Task task : taskList.values()) {
+            if (task.getId() > maxId) maxId = task.getId();
+        }
+        for (Epic epic : epicList.values()) {
+            if (epic.getId() > maxId) maxId = epic.getId();
         }
-        for (int i : epicList.keySet()) {
-            if (i > maxId) maxId = i;
+        for (Subtask subtask : subtaskList.values()) {
+            if (subtask.getId() > maxId) maxId = subtask.getId();
         }
-        for (int i : subtaskList.keySet()) {
-            if (i > maxId) maxId = i;
+        idMain.set(maxId + 1);
+    }
+
+    @Override
+    public List<Integer> addNewBatch(List<? extends Task> tasks) {
+        final int firstId = idMain.get();
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        List<Task> accepted = new ArrayList<>(tasks.size());
+        // прежние идентификаторы принятых элементов для восстановления при конфликте
+        int[] oldIds = new int[tasks.size()];
+        for (Task task : tasks) {
+            if (task == null) {
+                ids.add(-1);
+                continue;
+            }
+            if (task instanceof Subtask && !isBatchEpic(tasks, ((Subtask) task).getEpicId())) {
+                ids.add(-2);
+                continue;
+            }
+            oldIds[accepted.size()] = task.getId();
+            task.setId(idMain.getAndIncrement());
+            ids.add(task.getId());
+            accepted.add(task);
+        }
+
+        // ссылки на эпики списка по позиции заменяются выданными эпикам идентификаторами
+        List<Subtask> linkedSubtasks = new ArrayList<>();
+        List<Integer> epicRefs = new ArrayList<>();
+        for (Task task : accepted) {
+            if (task instanceof Subtask && ((Subtask) task).getEpicId() < 0) {
+                Subtask subtask = (Subtask) task;
+                linkedSubtasks.add(subtask);
+                epicRefs.add(subtask.getEpicId());
+                subtask.setEpicId(tasks.get(-subtask.getEpicId() - 1).getId());
+            }
         }
-        idMain = maxId + 1;
+
+        try {
+            checkBatchTimeConflicts(accepted);
+        } catch (TaskCrossTimeException e) {
+            idMain.set(firstId);
+            for (int i = 0; i < linkedSubtasks.size(); i++) {
+                linkedSubtasks.get(i).setEpicId(epicRefs.get(i));
+            }
+            for (int i = 0; i < accepted.size(); i++) {
+                accepted.get(i).setId(oldIds[i]);
+            }
+            throw e;
+        }
+        applyBatch(accepted);
+        return ids;
     }
 
     /**
-     * Вычисление времени старта и завершения эпика на основе времен подзадач
+     * Проверка эпика подзадачи из списка addNewBatch
      *
-     * @param epicId - идентификатор эпика
+     * @param tasks  - список добавляемых задач
+     * @param epicId - идентификатор эпика или ссылка на эпик списка по позиции
+     * @return - true, если эпик существует или находится в списке на указанной позиции
      */
-    private void setEpicTime(Integer epicId) {
-        Subtask subtask;
-        LocalDateTime minDateTime;
-        LocalDateTime finishTime;
-        int minutesOfDuration = 0;
+    private boolean isBatchEpic(List<? extends Task> tasks, Integer epicId) {
+        if (epicId == null) {
+            return false;
+        }
+        if (epicId >= 0) {
+            return epicList.containsKey(epicId);
+        }
+        int position = -epicId - 1;
+        return position < tasks.size() && tasks.get(position) instanceof Epic;
+    }
 
-        Epic epic = epicList.get(epicId);
-        List<Integer> subtasks = epic.getSubtasks();
-        if (subtasks.isEmpty()) {
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            epic.setDuration(null);
-            return;
-        } else {
-            subtask = subtaskList.get(subtasks.get(0));
-            minDateTime = subtask.getStartTime();
-            finishTime = subtask.getEndTime();
+    @Override
+    public List<Integer> updateBatch(List<? extends Task> tasks) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        List<Task> accepted = new ArrayList<>(tasks.size());
+        Set<Integer> batchEpicIds = new HashSet<>();
+        for (Task task : tasks) {
+            if (task instanceof Epic) {
+                batchEpicIds.add(task.getId());
+            }
+        }
+        for (Task task : tasks) {
+            if (task == null) {
+                ids.add(-1);
+                continue;
+            }
+            if (task instanceof Subtask && !epicList.containsKey(((Subtask) task).getEpicId())
+                    && !batchEpicIds.contains(((Subtask) task).getEpicId())) {
+                ids.add(-2);
+                continue;
+            }
+            ids.add(task.getId());
+            accepted.add(task);
         }
 
-        for (int subtaskId : subtasks) {
-            subtask = subtaskList.get(subtaskId);
-            LocalDateTime subtaskStartTime = subtask.getStartTime();
-            LocalDateTime subtaskEndTime = subtask.getEndTime();
-            minutesOfDuration += subtask.getDuration().toMinutes();
+        checkBatchTimeConflicts(accepted);
+        applyBatch(accepted);
+        return ids;
+    }
 
-            if (subtaskStartTime.isBefore(minDateTime)) {
-                minDateTime = subtaskStartTime;
+    @Override
+    public void removeBatch(Collection<Integer> ids) {
+        Set<Integer> changedEpics = new HashSet<>();
+        for (Integer id : ids) {
+            if (taskList.containsKey(id)) {
+                removeFromSortedList(taskList.remove(id));
+                viewHistory.remove(id);
+            } else if (subtaskList.containsKey(id)) {
+                Subtask subtask = subtaskList.remove(id);
+                removeFromSortedList(subtask);
+                viewHistory.remove(id);
+                Epic epic = epicList.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.removeSubtask(id);
+                    getEpicAggregate(epic.getId()).removeSubtask(id);
+                    changedEpics.add(epic.getId());
+                }
+            } else if (epicList.containsKey(id)) {
+                removeEpic(id);
             }
-            if (subtaskEndTime.isAfter(finishTime)) {
-                finishTime = subtaskEndTime;
+        }
+        // показатели каждого измененного эпика пересчитываются один раз
+        for (Integer epicId : changedEpics) {
+            setStatusEpic(epicId);
+        }
+    }
+
+    /**
+     * Проверка пересечения по времени для списка задач как единого целого.
+     * Прежние версии задач списка не учитываются: задачи списка могут занимать время друг друга.
+     * При конфликте хранилище, упорядоченное по времени, остается в прежнем состоянии.
+     *
+     * @param batch - задачи, эпики и подзадачи
+     */
+    private void checkBatchTimeConflicts(List<Task> batch) {
+        List<Task> timedTasks = new ArrayList<>();
+        List<TaskTimeIndex.Entry> replacedEntries = new ArrayList<>();
+        for (Task task : batch) {
+            if (task instanceof Epic) {
+                continue;
             }
+            if (task.getStartTime() != null) {
+                timedTasks.add(task);
+            }
+            Task oldTask = task instanceof Subtask ? subtaskList.get(task.getId()) : taskList.get(task.getId());
+            if (oldTask != null) {
+                TaskTimeIndex.Entry oldEntry = tasksSortedByTime.remove(oldTask.getId());
+                if (oldEntry != null) {
+                    replacedEntries.add(oldEntry);
+                }
+            }
+        }
+        timedTasks.sort(taskComparator);
+
+        for (int i = 0; i < timedTasks.size(); i++) {
+            Task task = timedTasks.get(i);
+            int crossTime = tasksSortedByTime.countConflicts(task.getId(), task.getStartTime(),
+                    task.getEndTime());
+            if (crossTime == 0 && i > 0 && !checkTimeFree(task, timedTasks.get(i - 1))) {
+                crossTime = 1;
+            }
+            if (crossTime > 0) {
+                for (TaskTimeIndex.Entry oldEntry : replacedEntries) {
+                    tasksSortedByTime.put(oldEntry);
+                }
+                String message = "Конфликт по времени исполнения.\n " + task;
+                throw new TaskCrossTimeException(message, "число конфликтов - " + crossTime);
+            }
+        }
+    }
+
+    /**
+     * Сохранение проверенного списка задач.
+     * Эпики сохраняются раньше подзадач, показатели каждого затронутого эпика пересчитываются один раз.
+     *
+     * @param batch - задачи, эпики и подзадачи
+     */
+    private void applyBatch(List<Task> batch) {
+        Set<Integer> changedEpics = new HashSet<>();
+        for (Task task : batch) {
+            if (task instanceof Epic) {
+                Epic oldEpic = epicList.put(task.getId(), (Epic) task);
+                if (oldEpic != null) {
+                    ((Epic) task).reloadSubtakList(oldEpic);
+                }
+                changedEpics.add(task.getId());
+            } else if (!(task instanceof Subtask)) {
+                taskList.put(task.getId(), task);
+                tasksSortedByTime.put(task);
+            }
+        }
+        for (Task task : batch) {
+            if (!(task instanceof Subtask)) {
+                continue;
+            }
+            Subtask subtask = (Subtask) task;
+            int id = subtask.getId();
+            int epicId = subtask.getEpicId();
+            Subtask oldSubtask = subtaskList.put(id, subtask);
+            if (oldSubtask != null && !oldSubtask.getEpicId().equals(epicId)) {
+                Epic oldEpic = epicList.get(oldSubtask.getEpicId());
+                if (oldEpic != null) {
+                    oldEpic.removeSubtask(id);
+                    getEpicAggregate(oldEpic.getId()).removeSubtask(id);
+                    changedEpics.add(oldEpic.getId());
+                }
+            }
+            epicList.get(epicId).addSubtask(id);
+            getEpicAggregate(epicId).putSubtask(subtask);
+            changedEpics.add(epicId);
+            tasksSortedByTime.put(subtask);
+        }
+        for (Integer epicId : changedEpics) {
+            setStatusEpic(epicId);
+        }
+    }
+
+    /**
+     * Поиск задачи любого типа без добавления в историю просмотров
+     *
+     * @param id - идентификатор задачи
+     * @return - задача, эпик, подзадача или null
+     */
+    protected Task findTask(Integer id) {
+        Task task = taskList.get(id);
+        if (task == null) {
+            task = epicList.get(id);
+        }
+        if (task == null) {
+            task = subtaskList.get(id);
+        }
+        return task;
+    }
+
+    /**
+     * Восстановление задач всех типов в пустом менеджере одним проходом.
+     * В отличие от последовательных вызовов updateTask/updateEpic/updateSubtask
+     * пересечения по времени проверяются один раз по отсортированному списку,
+     * а показатели каждого эпика рассчитываются один раз после добавления всех подзадач.
+     * При повторе идентификатора используется последняя задача списка.
+     * Подзадачи несуществующих эпиков означают поврежденные данные: менеджер очищается,
+     * и выбрасывается исключение с идентификаторами таких подзадач.
+     *
+     * @param tasks  - задачи, эпики и подзадачи в порядке их загрузки
+     * @param source - источник задач для сообщения об ошибке, например имя файла
+     * @throws LoadException - если есть подзадачи несуществующих эпиков
+     */
+    protected void restore(List<? extends Task> tasks, String source) {
+        if (getNumberOfObjects() > 0) {
+            throw new IllegalStateException("Восстановление задач возможно только в пустом менеджере.");
+        }
+        for (Task task : tasks) {
+            if (task instanceof Subtask) {
+                subtaskList.put(task.getId(), (Subtask) task);
+            } else if (task instanceof Epic) {
+                epicList.put(task.getId(), (Epic) task);
+            } else {
+                taskList.put(task.getId(), task);
+            }
+        }
+        List<Integer> orphanIds = new ArrayList<>();
+        for (Subtask subtask : subtaskList.values()) {
+            if (!epicList.containsKey(subtask.getEpicId())) {
+                orphanIds.add(subtask.getId());
+            }
+        }
+        if (!orphanIds.isEmpty()) {
+            clear();
+            throw new LoadException("Подзадачи ссылаются на несуществующие эпики: "
+                    + listIds(orphanIds), source);
+        }
+
+        // проверяем пересечения по времени соседних задач, упорядоченных по времени начала
+        List<Task> timedTasks = new ArrayList<>();
+        for (Task task : taskList.values()) {
+            if (task.getStartTime() != null) {
+                timedTasks.add(task);
+            }
+        }
+        for (Subtask subtask : subtaskList.values()) {
+            if (subtask.getStartTime() != null) {
+                timedTasks.add(subtask);
+            }
+        }
+        Task[] sortedTasks = timedTasks.toArray(new Task[0]);
+        Arrays.parallelSort(sortedTasks, taskComparator);
+        for (int i = 1; i < sortedTasks.length; i++) {
+            if (!checkTimeFree(sortedTasks[i], sortedTasks[i - 1])) {
+                Task task = sortedTasks[i];
+                clear();
+                throw new TaskCrossTimeException("Конфликт по времени исполнения.\n " + task,
+                        "число конфликтов - 1");
+            }
+        }
+        for (Task task : sortedTasks) {
+            tasksSortedByTime.put(task);
+        }
+
+        // списки подзадач эпиков заполняются в порядке загрузки, а не в порядке хеш-таблицы
+        for (Task task : tasks) {
+            if (task instanceof Subtask && subtaskList.get(task.getId()) == task) {
+                Subtask subtask = (Subtask) task;
+                epicList.get(subtask.getEpicId()).addSubtask(subtask.getId());
+                getEpicAggregate(subtask.getEpicId()).putSubtask(subtask);
+            }
+        }
+        for (Epic epic : epicList.values()) {
+            setStatusEpic(epic.getId());
+        }
+        if (getNumberOfObjects() > 0) {
+            resetMainId();
         }
-        epic.setStartTime(minDateTime);
-        epic.setEndTime(finishTime);
-        epic.setDuration(Duration.ofMinutes(minutesOfDuration));
     }
 
     /**
@@ -388,51 +875,161 @@ public class InMemoryTaskManager implements TaskManager {
      */
     @Override
     public List<Task> getPrioritizedTasks() {
+        return tasksSortedByTime.getTasks();
+    }
+
+    /**
+     * Задачи хранилища не пересекаются, поэтому с интервалом может пересекаться
+     * только одна задача, начатая раньше него. Остальные задачи выбираются
+     * из части хранилища с временем начала внутри интервала.
+     */
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        List<Task> tasks = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return tasks;
+        }
+        TaskTimeIndex.Entry previous = tasksSortedByTime.lower(from);
+        if (previous != null && previous.getEnd().isAfter(from)) {
+            tasks.add(previous.getTask());
+        }
+        for (TaskTimeIndex.Entry entry : tasksSortedByTime.startingBetween(from, to)) {
+            tasks.add(entry.getTask());
+        }
+        return tasks;
+    }
+
+    @Override
+    public List<Task> getNextTasks(LocalDateTime from, int count) {
+        return firstTasks(tasksSortedByTime.startingFrom(from), count);
+    }
 
-        List<Task> sortedTaskList = new ArrayList<>();
+    /**
+     * Положение задачи after определяется по ее записи в хранилище,
+     * а если задачи там нет - по текущему времени начала.
+     */
+    @Override
+    public List<Task> getPrioritizedPage(Task after, int limit) {
+        if (after == null) {
+            return firstTasks(tasksSortedByTime.following(null, 0), limit);
+        }
+        TaskTimeIndex.Entry entry = tasksSortedByTime.get(after.getId());
+        LocalDateTime start = entry != null ? entry.getStart() : after.getStartTime();
+        return firstTasks(tasksSortedByTime.following(start, after.getId()), limit);
+    }
+
+    // задачи первых записей части хранилища, упорядоченного по времени
+    private static List<Task> firstTasks(SortedSet<TaskTimeIndex.Entry> entries, int count) {
+        checkLimit(count);
+        List<Task> result = new ArrayList<>(Math.min(count, entries.size()));
+        for (TaskTimeIndex.Entry entry : entries) {
+            if (result.size() >= count) {
+                break;
+            }
+            result.add(entry.getTask());
+        }
+        return result;
+    }
 
-        for (Map.Entry<Task, String> entry : tasksSortedByTime.entrySet()) {
-            sortedTaskList.addLast(entry.getKey());
+    // отрицательный размер страницы - ошибка вызывающего кода, а не пустая страница
+    private static void checkLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Число задач не может быть отрицательным: " + limit);
         }
-        return sortedTaskList;
     }
 
     /**
-     * Добавление задачик к хранилищу отсортированному по времени начала
+     * Поиск свободных интервалов по хранилищу, упорядоченному по времени.
+     * Поиск начинается с последней задачи, начатой не позже earliestStart,
+     * и просматривает только задачи до найденных интервалов.
+     * Время задач задается с точностью до минуты, а задачи, касающиеся границами, пересекаются,
+     * поэтому интервал начинается через минуту после завершения задачи
+     * и заканчивается за минуту до начала следующей.
+     */
+    @Override
+    public List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime earliestStart,
+                                        LocalDateTime deadline, int maxSlots) {
+        if (duration == null || duration.isNegative() || earliestStart == null) {
+            throw new IllegalArgumentException("Не заданы продолжительность или время начала задачи.");
+        }
+        List<TimeSlot> slots = new ArrayList<>();
+        LocalDateTime candidate = earliestStart;
+
+        // задача, начатая раньше, может еще выполняться
+        TaskTimeIndex.Entry previous = tasksSortedByTime.floor(earliestStart);
+        if (previous != null && !previous.getEnd().isBefore(candidate)) {
+            candidate = previous.getEnd().plusMinutes(1);
+        }
+
+        for (TaskTimeIndex.Entry entry : tasksSortedByTime.following(earliestStart, Integer.MAX_VALUE)) {
+            if (slots.size() >= maxSlots || !fitsDeadline(candidate, duration, deadline)) {
+                return slots;
+            }
+            LocalDateTime slotEnd = entry.getStart().minusMinutes(1);
+            if (!candidate.plus(duration).isAfter(slotEnd)) {
+                slots.add(new TimeSlot(candidate, deadline != null && deadline.isBefore(slotEnd)
+                        ? deadline : slotEnd));
+            }
+            LocalDateTime next = entry.getEnd().plusMinutes(1);
+            if (next.isAfter(candidate)) {
+                candidate = next;
+            }
+        }
+        if (slots.size() < maxSlots && fitsDeadline(candidate, duration, deadline)) {
+            slots.add(new TimeSlot(candidate, deadline));
+        }
+        return slots;
+    }
+
+    // задача, начатая в заданное время, завершается не позже крайнего срока
+    private static boolean fitsDeadline(LocalDateTime start, Duration duration, LocalDateTime deadline) {
+        return deadline == null || !start.plus(duration).isAfter(deadline);
+    }
+
+    /**
+     * Добавление задачи к хранилищу отсортированному по времени начала.
+     * Прежняя запись задачи в хранилище заменяется, поэтому при обновлении
+     * задача переносится на новое время, а не дублируется.
+     * Проверка пересечений и запись выполняются одним вызовом, чтобы наследник
+     * мог выполнить их под одной блокировкой хранилища по времени.
      *
      * @param task - задача для добавления
      */
-    private void addTaskToSortedMap(Task task) {
+    protected void addTaskToSortedMap(Task task) {
         if (task.getStartTime() == null) {
             /* ТЗ-7:
             Дата начала задачи по каким-то причинам может быть не задана.
             Тогда при добавлении её не следует учитывать в списке задач и подзадач,
             отсортированных по времени начала.
              */
-            return;
-        }
-
-        LocalDateTime curentTime = LocalDateTime.now();
-        if (tasksSortedByTime.size() == 0) {
-            tasksSortedByTime.put(task, curentTime.format(Task.DATE_TIME_FORMATTER));
+            tasksSortedByTime.remove(task.getId());
             return;
         }
 
         // Проверяем пересечение времени добавляемой задачи с существующими задачами
-        List<Task> crossTime = getPrioritizedTasks().stream()
-                .filter((Task existsTask) -> !checkTimeFree(task, existsTask))
-                .collect(Collectors.toList());
-
-        if (crossTime.isEmpty()) {
-            tasksSortedByTime.put(task, curentTime.format(Task.DATE_TIME_FORMATTER));
+        int crossTime = tasksSortedByTime.countConflicts(task.getId(), task.getStartTime(), task.getEndTime());
+        if (crossTime == 0) {
+            tasksSortedByTime.put(task);
         } else {
             String message = "Конфликт по времени исполнения.\n " + task.toString();
-            throw new TaskCrossTimeException(message, "число конфликтов - " + crossTime.size());
+            throw new TaskCrossTimeException(message, "число конфликтов - " + crossTime);
         }
     }
 
-    private void removeFromSortedList(Task task) {
-        tasksSortedByTime.remove(task);
+    // удаление задачи из хранилища, отсортированного по времени начала
+    protected void removeFromSortedList(Task task) {
+        if (task != null) {
+            tasksSortedByTime.remove(task.getId());
+        }
+    }
+
+    // идентификаторы по возрастанию для сообщения об ошибке, не больше MAX_REPORTED_IDS
+    private static String listIds(List<Integer> ids) {
+        Collections.sort(ids);
+        if (ids.size() <= MAX_REPORTED_IDS) {
+            return ids.toString();
+        }
+        return ids.subList(0, MAX_REPORTED_IDS) + " и еще " + (ids.size() - MAX_REPORTED_IDS);
     }
 
     /**
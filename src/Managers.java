@@ -9,8 +9,18 @@ public final class Managers {
         return new FileBackedTaskManager();
     }
 
+    // определение потокобезопасного менеджера задач
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
     // определение объекта журнала событий
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // определение объекта журнала событий заданного размера
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
 }
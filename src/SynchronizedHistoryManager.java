@@ -0,0 +1,35 @@
+import tasks.Task;
+
+import java.util.List;
+
+/**
+ * Потокобезопасная обертка менеджера истории просмотров.
+ * Все обращения к истории выполняются последовательно.
+ */
+public class SynchronizedHistoryManager implements HistoryManager {
+    private final HistoryManager historyManager;
+
+    public SynchronizedHistoryManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        historyManager.add(task);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        historyManager.remove(id);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public synchronized void clear() {
+        historyManager.clear();
+    }
+}
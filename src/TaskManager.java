@@ -1,8 +1,18 @@
+import query.QueryPlan;
+import query.QueryResult;
+import query.TaskQuery;
 import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskStatus;
+import tasks.TaskType;
+import tasks.TimeSlot;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     // Метод добавления новой задачи
@@ -37,6 +47,7 @@ public interface TaskManager {
 
     void removeSubtask(Integer subtaskId);
 
+    // неизменяемые списки, общие для всех чтений до следующего изменения менеджера
     List<Task> getTaskList();
 
     List<Epic> getEpicList();
@@ -61,4 +72,178 @@ public interface TaskManager {
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    /**
+     * Задачи и подзадачи, время выполнения которых пересекается с интервалом [from, to)
+     *
+     * @param from - начало интервала
+     * @param to   - окончание интервала, не включается
+     * @return - задачи в порядке времени начала
+     */
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Ближайшие задачи и подзадачи, начинающиеся не раньше заданного времени
+     *
+     * @param from  - время
+     * @param count - наибольшее число задач
+     * @return - задачи в порядке времени начала
+     * @throws IllegalArgumentException - если count меньше нуля
+     */
+    List<Task> getNextTasks(LocalDateTime from, int count);
+
+    /**
+     * Страница списка задач, упорядоченного по времени начала.
+     * Следующая страница запрашивается по последней задаче предыдущей страницы.
+     *
+     * @param after - последняя задача предыдущей страницы, null - первая страница
+     * @param limit - размер страницы
+     * @return - задачи в порядке времени начала
+     * @throws IllegalArgumentException - если limit меньше нуля
+     */
+    List<Task> getPrioritizedPage(Task after, int limit);
+
+    /**
+     * Добавление списка новых задач, эпиков и подзадач одной операцией.
+     * Пересечение по времени проверяется для всего списка: при конфликте
+     * не добавляется ни одна задача, а элементы списка сохраняют прежние идентификаторы.
+     * Подзадача может ссылаться на эпик из этого же списка по его позиции в списке:
+     * идентификатор эпика подзадачи задается значением batchEpicId(позиция) и при добавлении
+     * заменяется идентификатором, выданным эпику.
+     *
+     * @param tasks - задачи, эпики и подзадачи
+     * @return - идентификаторы в порядке списка; меньше нуля для пропущенных элементов,
+     * как в addNewTask/addNewSubtask
+     */
+    List<Integer> addNewBatch(List<? extends Task> tasks);
+
+    /**
+     * Ссылка подзадачи на эпик из списка addNewBatch по позиции в списке.
+     * Ссылка отрицательна и не совпадает ни с одним идентификатором задач.
+     *
+     * @param position - позиция эпика в списке, начиная с нуля
+     * @return - значение идентификатора эпика для подзадачи
+     */
+    static int batchEpicId(int position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Позиция в списке не может быть отрицательной: " + position);
+        }
+        return -position - 1;
+    }
+
+    /**
+     * Обновление списка задач, эпиков и подзадач одной операцией.
+     * Пересечение по времени проверяется для всего списка: при конфликте
+     * не обновляется ни одна задача.
+     *
+     * @param tasks - задачи, эпики и подзадачи
+     * @return - идентификаторы в порядке списка; меньше нуля для пропущенных элементов,
+     * как в updateSubtask
+     */
+    List<Integer> updateBatch(List<? extends Task> tasks);
+
+    /**
+     * Удаление задач, эпиков и подзадач по списку идентификаторов одной операцией.
+     * Несуществующие идентификаторы пропускаются.
+     *
+     * @param ids - идентификаторы задач любого типа
+     */
+    void removeBatch(Collection<Integer> ids);
+
+    /**
+     * Поиск ближайших свободных интервалов, в которые помещается задача заданной продолжительности
+     *
+     * @param duration      - продолжительность задачи
+     * @param earliestStart - самое раннее время начала задачи
+     * @param deadline      - самое позднее время завершения задачи, null - без ограничения
+     * @param maxSlots      - наибольшее число возвращаемых интервалов
+     * @return - свободные интервалы в порядке времени
+     */
+    List<TimeSlot> findFreeSlots(Duration duration, LocalDateTime earliestStart,
+                                 LocalDateTime deadline, int maxSlots);
+
+    /**
+     * Страница списка задач по возрастанию идентификатора.
+     * Следующая страница запрашивается по идентификатору последней задачи предыдущей страницы,
+     * поэтому добавление и удаление задач между запросами не сдвигает страницы.
+     *
+     * @param afterId - идентификатор последней задачи предыдущей страницы, null - первая страница
+     * @param limit   - размер страницы
+     * @return - задачи по возрастанию идентификатора
+     * @throws IllegalArgumentException - если limit меньше нуля
+     */
+    List<Task> getTaskPage(Integer afterId, int limit);
+
+    // страница списка эпиков по возрастанию идентификатора, как в getTaskPage
+    List<Epic> getEpicPage(Integer afterId, int limit);
+
+    // страница списка подзадач по возрастанию идентификатора, как в getTaskPage
+    List<Subtask> getSubtaskPage(Integer afterId, int limit);
+
+    /**
+     * Поток задач без копирования хранилища в список.
+     * Порядок задач в потоке не определен.
+     *
+     * @return - поток задач
+     */
+    Stream<Task> taskStream();
+
+    // поток эпиков без копирования хранилища в список
+    Stream<Epic> epicStream();
+
+    // поток подзадач без копирования хранилища в список
+    Stream<Subtask> subtaskStream();
+
+    // поток истории просмотров от самого раннего просмотра
+    Stream<Task> historyStream();
+
+    /**
+     * Задачи в заданном статусе без перебора всех задач
+     *
+     * @param status - статус
+     * @return - задачи в порядке перехода в статус
+     */
+    List<Task> getTasksByStatus(TaskStatus status);
+
+    // эпики в заданном статусе, как в getTasksByStatus
+    List<Epic> getEpicsByStatus(TaskStatus status);
+
+    // подзадачи в заданном статусе, как в getTasksByStatus
+    List<Subtask> getSubtasksByStatus(TaskStatus status);
+
+    // число задач заданного типа
+    int getCount(TaskType type);
+
+    /**
+     * Число задач заданного типа в заданном статусе, определяется за O(1)
+     *
+     * @param type   - тип задач
+     * @param status - статус
+     * @return - число задач
+     */
+    int getCount(TaskType type, TaskStatus status);
+
+    /**
+     * Поиск задач всех типов по словам заголовка и описания без учета регистра и различия "е" и "ё".
+     * Задача должна содержать все слова запроса, слово со звездочкой в конце ("зада*")
+     * ищется как начало слова.
+     *
+     * @param query - слова через пробел
+     * @param limit - наибольшее число найденных задач
+     * @return - задачи по возрастанию идентификатора
+     */
+    List<Task> search(String query, int limit);
+
+    /**
+     * Выборка задач по условиям запроса.
+     * Задачи-кандидаты выбираются через хранилище или индекс, дающий меньше всего кандидатов:
+     * по идентификатору, по списку подзадач эпика, по статусу, по времени начала или по словам.
+     *
+     * @param query - условия выборки
+     * @return - найденные задачи и использованный план
+     */
+    QueryResult query(TaskQuery query);
+
+    // план выполнения запроса без выборки задач
+    QueryPlan explain(TaskQuery query);
 }
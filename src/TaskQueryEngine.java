@@ -0,0 +1,231 @@
+import query.QueryPlan;
+import query.QueryResult;
+import query.TaskQuery;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Выполнение запросов по хранилищам и индексам менеджера задач.
+ * Для каждого запроса оценивается число задач-кандидатов, которые дает каждый
+ * подходящий способ выборки, и выбирается способ с наименьшей оценкой.
+ * Остальные условия запроса проверяются для каждого кандидата.
+ */
+public class TaskQueryEngine {
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+    private static final Comparator<Task> BY_START_TIME = Comparator.comparing(Task::getStartTime,
+            Comparator.nullsFirst(Comparator.naturalOrder())).thenComparing(Task::getId);
+
+    private final TaskStore<Task> taskList;
+    private final TaskStore<Epic> epicList;
+    private final TaskStore<Subtask> subtaskList;
+    private final TaskTimeIndex timeIndex;
+    private final TextIndex textIndex;
+
+    public TaskQueryEngine(TaskStore<Task> taskList, TaskStore<Epic> epicList, TaskStore<Subtask> subtaskList,
+                           TaskTimeIndex timeIndex, TextIndex textIndex) {
+        this.taskList = taskList;
+        this.epicList = epicList;
+        this.subtaskList = subtaskList;
+        this.timeIndex = timeIndex;
+        this.textIndex = textIndex;
+    }
+
+    /**
+     * Выбор способа выборки кандидатов.
+     * Хранилище по времени содержит только задачи и подзадачи,
+     * поэтому используется, только если запрос не выбирает эпики.
+     *
+     * @param query - запрос
+     * @return - план с наименьшей оценкой числа кандидатов
+     */
+    public QueryPlan plan(TaskQuery query) {
+        if (query.getId() != null) {
+            return new QueryPlan(QueryPlan.AccessPath.ID, 1);
+        }
+
+        QueryPlan.AccessPath bestPath = QueryPlan.AccessPath.SCAN;
+        int bestRows = 0;
+        for (TaskType type : query.getTypes()) {
+            bestRows += store(type).size();
+        }
+
+        if (query.getEpicId() != null) {
+            Epic epic = epicList.get(query.getEpicId());
+            int rows = epic == null ? 0 : epic.getSubtaskCount();
+            if (rows < bestRows) {
+                bestPath = QueryPlan.AccessPath.EPIC;
+                bestRows = rows;
+            }
+        }
+        if (query.getStatus() != null) {
+            int rows = 0;
+            for (TaskType type : query.getTypes()) {
+                rows += store(type).countByStatus(query.getStatus());
+            }
+            if (rows < bestRows) {
+                bestPath = QueryPlan.AccessPath.STATUS;
+                bestRows = rows;
+            }
+        }
+        if (query.hasTimeRange() && !query.getTypes().contains(TaskType.EPIC)) {
+            // задачи интервала считаются, пока их не больше лучшей оценки
+            int rows = 0;
+            for (TaskTimeIndex.Entry ignored : timeIndex.startingBetween(query.getFrom(), query.getTo())) {
+                if (++rows >= bestRows) {
+                    break;
+                }
+            }
+            if (rows < bestRows) {
+                bestPath = QueryPlan.AccessPath.TIME;
+                bestRows = rows;
+            }
+        }
+        if (query.getText() != null) {
+            buildTextIndex();
+            int rows = textIndex.estimate(query.getText());
+            if (rows < bestRows) {
+                bestPath = QueryPlan.AccessPath.TEXT;
+                bestRows = rows;
+            }
+        }
+        return new QueryPlan(bestPath, bestRows);
+    }
+
+    /**
+     * Выполнение запроса.
+     * Если кандидаты выбираются в запрошенном порядке, просмотр прекращается
+     * после limit найденных задач, иначе найденные задачи сортируются.
+     *
+     * @param query - запрос
+     * @return - найденные задачи, план и число просмотренных кандидатов
+     */
+    public QueryResult execute(TaskQuery query) {
+        QueryPlan plan = plan(query);
+        if (query.getLimit() == 0) {
+            return new QueryResult(new ArrayList<>(), plan, 0);
+        }
+        QueryPlan.AccessPath path = plan.getAccessPath();
+        int[] textIds = null;
+        if (query.getText() != null && path != QueryPlan.AccessPath.TEXT) {
+            textIds = textIndex.search(query.getText(), Integer.MAX_VALUE);
+        }
+        boolean ordered = path == QueryPlan.AccessPath.ID
+                || path == QueryPlan.AccessPath.TIME && query.getOrder() == TaskQuery.Order.START_TIME
+                || path == QueryPlan.AccessPath.TEXT && query.getOrder() == TaskQuery.Order.ID;
+
+        List<Task> tasks = new ArrayList<>();
+        int examined = 0;
+        for (Iterator<? extends Task> iterator = candidates(query, path).iterator(); iterator.hasNext(); ) {
+            Task task = iterator.next();
+            examined++;
+            if (matches(task, query, textIds)) {
+                tasks.add(task);
+                if (ordered && tasks.size() >= query.getLimit()) {
+                    break;
+                }
+            }
+        }
+        if (!ordered) {
+            tasks.sort(query.getOrder() == TaskQuery.Order.START_TIME ? BY_START_TIME : BY_ID);
+            if (tasks.size() > query.getLimit()) {
+                tasks = new ArrayList<>(tasks.subList(0, query.getLimit()));
+            }
+        }
+        return new QueryResult(tasks, plan, examined);
+    }
+
+    // задачи-кандидаты выбранного способа выборки, выбираются по мере просмотра
+    private Stream<? extends Task> candidates(TaskQuery query, QueryPlan.AccessPath path) {
+        return switch (path) {
+            case ID -> Stream.ofNullable(findTask(query.getId()));
+            case EPIC -> {
+                Epic epic = epicList.get(query.getEpicId());
+                if (epic == null) {
+                    yield Stream.empty();
+                }
+                yield StreamSupport.intStream(Spliterators.spliterator(epic.subtaskIterator(),
+                                epic.getSubtaskCount(), Spliterator.ORDERED), false)
+                        .mapToObj(subtaskList::get)
+                        .filter(Objects::nonNull);
+            }
+            case STATUS -> query.getTypes().stream()
+                    .flatMap(type -> store(type).getByStatus(query.getStatus()).stream());
+            case TIME -> timeIndex.startingBetween(query.getFrom(), query.getTo()).stream()
+                    .map(TaskTimeIndex.Entry::getTask);
+            case TEXT -> Arrays.stream(textIndex.search(query.getText(), Integer.MAX_VALUE))
+                    .mapToObj(this::findTask);
+            case SCAN -> query.getTypes().stream()
+                    .flatMap(type -> store(type).values().stream());
+        };
+    }
+
+    // проверка всех условий запроса
+    private static boolean matches(Task task, TaskQuery query, int[] textIds) {
+        if (!query.getTypes().contains(typeOf(task))) {
+            return false;
+        }
+        if (query.getId() != null && task.getId() != query.getId()) {
+            return false;
+        }
+        if (query.getStatus() != null && task.getStatus() != query.getStatus()) {
+            return false;
+        }
+        if (query.getEpicId() != null
+                && !(task instanceof Subtask && query.getEpicId().equals(((Subtask) task).getEpicId()))) {
+            return false;
+        }
+        if (query.hasTimeRange()) {
+            LocalDateTime start = task.getStartTime();
+            if (start == null || start.isBefore(query.getFrom()) || !start.isBefore(query.getTo())) {
+                return false;
+            }
+        }
+        return textIds == null || Arrays.binarySearch(textIds, task.getId()) >= 0;
+    }
+
+    private static TaskType typeOf(Task task) {
+        if (task instanceof Subtask) {
+            return TaskType.SUBTASK;
+        }
+        return task instanceof Epic ? TaskType.EPIC : TaskType.TASK;
+    }
+
+    private TaskStore<? extends Task> store(TaskType type) {
+        return switch (type) {
+            case TASK -> taskList;
+            case EPIC -> epicList;
+            case SUBTASK -> subtaskList;
+        };
+    }
+
+    private Task findTask(int id) {
+        Task task = taskList.get(id);
+        if (task == null) {
+            task = epicList.get(id);
+        }
+        if (task == null) {
+            task = subtaskList.get(id);
+        }
+        return task;
+    }
+
+    private void buildTextIndex() {
+        if (!textIndex.isBuilt()) {
+            textIndex.build(List.of(taskList.values(), epicList.values(), subtaskList.values()));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+import tasks.Task;
+import tasks.TaskStatus;
+import util.IntHashMap;
+import util.IntLinkedSet;
+import util.IntMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+/**
+ * Хранилище задач одного типа с индексом по статусу и общим для всех хранилищ текстовым индексом.
+ * Для каждого статуса хранится множество идентификаторов задач, поэтому число задач
+ * в статусе определяется за O(1), а выборка задач статуса не перебирает все хранилище.
+ * Статус задачи учитывается на момент записи в хранилище: изменение статуса
+ * объекта задачи попадает в индекс при повторной записи задачи.
+ * <p>
+ * Множества идентификаторов по статусам изменяются под общей блокировкой хранилища,
+ * поэтому при параллельной таблице задач хранилище можно изменять из нескольких потоков.
+ *
+ * @param <T> - тип задач
+ */
+public class TaskStore<T extends Task> {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final IntMap<T> tasks;
+    private final IntLinkedSet[] idsByStatus;
+    private final TextIndex textIndex;
+
+    /**
+     * Конструктор
+     *
+     * @param textIndex - текстовый индекс, в котором учитываются задачи хранилища
+     */
+    public TaskStore(TextIndex textIndex) {
+        this(textIndex, new IntHashMap<>());
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param textIndex - текстовый индекс, в котором учитываются задачи хранилища
+     * @param tasks     - пустая таблица для хранения задач
+     */
+    public TaskStore(TextIndex textIndex, IntMap<T> tasks) {
+        this.textIndex = textIndex;
+        this.tasks = tasks;
+        idsByStatus = new IntLinkedSet[STATUSES.length];
+        for (int i = 0; i < idsByStatus.length; i++) {
+            idsByStatus[i] = new IntLinkedSet();
+        }
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    public boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    public T get(int id) {
+        return tasks.get(id);
+    }
+
+    public boolean containsKey(int id) {
+        return tasks.containsKey(id);
+    }
+
+    /**
+     * Запись задачи с обновлением индекса по статусу
+     *
+     * @param id   - идентификатор задачи
+     * @param task - задача
+     * @return - прежняя задача с этим идентификатором или null
+     */
+    public T put(int id, T task) {
+        T oldTask = tasks.put(id, task);
+        indexStatus(id, task.getStatus());
+        textIndex.put(task);
+        return oldTask;
+    }
+
+    /**
+     * Обновление индекса после изменения статуса задачи, уже записанной в хранилище
+     *
+     * @param id - идентификатор задачи
+     */
+    public void updateStatus(int id) {
+        T task = tasks.get(id);
+        if (task != null) {
+            indexStatus(id, task.getStatus());
+        }
+    }
+
+    /**
+     * Удаление задачи из хранилища и индекса по статусу
+     *
+     * @param id - идентификатор задачи
+     * @return - удаленная задача или null
+     */
+    public T remove(int id) {
+        T task = tasks.remove(id);
+        if (task != null) {
+            removeStatus(id);
+            textIndex.remove(id);
+        }
+        return task;
+    }
+
+    public void clear() {
+        textIndex.removeAll(tasks.values());
+        tasks.clear();
+        synchronized (idsByStatus) {
+            for (IntLinkedSet ids : idsByStatus) {
+                ids.clear();
+            }
+        }
+    }
+
+    // задачи хранилища только для чтения
+    public Collection<T> values() {
+        return tasks.values();
+    }
+
+    // неизменяемый список задач до следующего изменения хранилища
+    public List<T> snapshot() {
+        return tasks.snapshot();
+    }
+
+    /**
+     * Число задач в заданном статусе
+     *
+     * @param status - статус
+     * @return - число задач
+     */
+    public int countByStatus(TaskStatus status) {
+        synchronized (idsByStatus) {
+            return idsByStatus[status.ordinal()].size();
+        }
+    }
+
+    /**
+     * Задачи в заданном статусе в порядке перехода в этот статус
+     *
+     * @param status - статус
+     * @return - список задач
+     */
+    public List<T> getByStatus(TaskStatus status) {
+        synchronized (idsByStatus) {
+            IntLinkedSet ids = idsByStatus[status.ordinal()];
+            List<T> result = new ArrayList<>(ids.size());
+            for (PrimitiveIterator.OfInt iterator = ids.iterator(); iterator.hasNext(); ) {
+                // задача, удаленная из таблицы параллельным потоком, еще может оставаться в множестве
+                T task = tasks.get(iterator.nextInt());
+                if (task != null) {
+                    result.add(task);
+                }
+            }
+            return result;
+        }
+    }
+
+    private void indexStatus(int id, TaskStatus status) {
+        synchronized (idsByStatus) {
+            if (status != null && idsByStatus[status.ordinal()].contains(id)) {
+                return;
+            }
+            removeStatus(id);
+            if (status != null) {
+                idsByStatus[status.ordinal()].add(id);
+            }
+        }
+    }
+
+    private void removeStatus(int id) {
+        synchronized (idsByStatus) {
+            for (IntLinkedSet ids : idsByStatus) {
+                if (ids.remove(id)) {
+                    return;
+                }
+            }
+        }
+    }
+}
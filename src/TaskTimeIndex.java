@@ -0,0 +1,243 @@
+import tasks.Task;
+import util.IntHashMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Хранилище задач, упорядоченных по времени начала, а при совпадении по идентификатору.
+ * Время начала и завершения запоминается при добавлении задачи, поэтому изменение полей
+ * объекта задачи не нарушает порядок хранилища. Для каждого идентификатора хранится
+ * не больше одной записи: при повторном добавлении задачи прежняя запись удаляется.
+ * Задачи без времени начала в хранилище не попадают.
+ */
+public class TaskTimeIndex {
+    private final NavigableSet<Entry> entries;
+    private final IntHashMap<Entry> entriesById;
+    // неизменяемый список задач по времени, сбрасывается при изменении хранилища
+    private volatile List<Task> tasks;
+
+    public TaskTimeIndex() {
+        entries = new TreeSet<>();
+        entriesById = new IntHashMap<>();
+    }
+
+    /**
+     * Добавление задачи или перенос ранее добавленной задачи на новое время
+     *
+     * @param task - задача
+     * @return - прежняя запись задачи или null
+     */
+    public Entry put(Task task) {
+        Entry oldEntry = remove(task.getId());
+        if (task.getStartTime() != null) {
+            put(new Entry(task));
+        }
+        return oldEntry;
+    }
+
+    /**
+     * Возврат записи, ранее удаленной из хранилища
+     *
+     * @param entry - запись задачи
+     */
+    public void put(Entry entry) {
+        remove(entry.id);
+        entries.add(entry);
+        entriesById.put(entry.id, entry);
+        tasks = null;
+    }
+
+    /**
+     * Удаление задачи из хранилища
+     *
+     * @param id - идентификатор задачи
+     * @return - удаленная запись или null, если задачи нет в хранилище
+     */
+    public Entry remove(int id) {
+        Entry entry = entriesById.remove(id);
+        if (entry != null) {
+            entries.remove(entry);
+            tasks = null;
+        }
+        return entry;
+    }
+
+    public Entry get(int id) {
+        return entriesById.get(id);
+    }
+
+    public boolean contains(int id) {
+        return entriesById.containsKey(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        entriesById.clear();
+        tasks = null;
+    }
+
+    /**
+     * Задачи хранилища по времени начала.
+     * Список строится один раз после изменения хранилища и возвращается без копирования.
+     *
+     * @return - неизменяемый список задач
+     */
+    public List<Task> getTasks() {
+        List<Task> sortedTasks = tasks;
+        if (sortedTasks == null) {
+            List<Task> list = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                list.add(entry.task);
+            }
+            sortedTasks = List.copyOf(list);
+            tasks = sortedTasks;
+        }
+        return sortedTasks;
+    }
+
+    /**
+     * Подсчет числа задач хранилища, время выполнения которых пересекается с заданным интервалом.
+     * Запись с тем же идентификатором не учитывается: это прежняя версия проверяемой задачи.
+     * Задачи в хранилище между собой не пересекаются, поэтому упорядоченные по времени начала
+     * они упорядочены и по времени завершения. Достаточно просмотреть предшествующие задачи
+     * до первой непересекающейся и последующие задачи до окончания интервала.
+     *
+     * @param id    - идентификатор проверяемой задачи
+     * @param start - время начала
+     * @param end   - время завершения
+     * @return - число пересечений
+     */
+    public int countConflicts(int id, LocalDateTime start, LocalDateTime end) {
+        int count = 0;
+        Entry probe = new Entry(start, id);
+        for (Entry entry : entries.headSet(probe, false).descendingSet()) {
+            if (entry.id == id) {
+                continue;
+            }
+            if (entry.end.isBefore(start)) {
+                break;
+            }
+            count++;
+        }
+        for (Entry entry : entries.tailSet(probe, true)) {
+            if (entry.start.isAfter(end)) {
+                break;
+            }
+            if (entry.id != id) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Последняя запись, начатая раньше заданного времени
+     *
+     * @param time - время
+     * @return - запись или null
+     */
+    public Entry lower(LocalDateTime time) {
+        return entries.lower(new Entry(time, Integer.MIN_VALUE));
+    }
+
+    /**
+     * Последняя запись, начатая не позже заданного времени
+     *
+     * @param time - время
+     * @return - запись или null
+     */
+    public Entry floor(LocalDateTime time) {
+        return entries.floor(new Entry(time, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Записи, начатые в заданном интервале
+     *
+     * @param from - время начала интервала, включительно
+     * @param to   - время окончания интервала, не включительно
+     * @return - записи по возрастанию времени начала
+     */
+    public NavigableSet<Entry> startingBetween(LocalDateTime from, LocalDateTime to) {
+        return entries.subSet(new Entry(from, Integer.MIN_VALUE), true,
+                new Entry(to, Integer.MIN_VALUE), false);
+    }
+
+    /**
+     * Записи, начатые не раньше заданного времени
+     *
+     * @param from - время
+     * @return - записи по возрастанию времени начала
+     */
+    public NavigableSet<Entry> startingFrom(LocalDateTime from) {
+        return entries.tailSet(new Entry(from, Integer.MIN_VALUE), true);
+    }
+
+    /**
+     * Записи, следующие за задачей с заданным временем начала и идентификатором
+     *
+     * @param start - время начала задачи, null - с начала хранилища
+     * @param id    - идентификатор задачи
+     * @return - записи по возрастанию времени начала
+     */
+    public NavigableSet<Entry> following(LocalDateTime start, int id) {
+        if (start == null) {
+            return entries;
+        }
+        return entries.tailSet(new Entry(start, id), false);
+    }
+
+    /**
+     * Запись хранилища: задача и время ее выполнения на момент добавления.
+     */
+    public static class Entry implements Comparable<Entry> {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int id;
+        private final Task task;
+
+        private Entry(Task task) {
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.id = task.getId();
+            this.task = task;
+        }
+
+        // образец для поиска в хранилище
+        private Entry(LocalDateTime start, int id) {
+            this.start = start;
+            this.end = start;
+            this.id = id;
+            this.task = null;
+        }
+
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public LocalDateTime getEnd() {
+            return end;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = start.compareTo(other.start);
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+import tasks.Task;
+import util.IntHashMap;
+import util.IntLinkedSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Инвертированный индекс слов заголовков и описаний задач.
+ * Текст разбивается на слова из букв и цифр, слова приводятся к нижнему регистру,
+ * буква "ё" заменяется на "е". Для каждого слова хранится упорядоченный массив
+ * идентификаторов задач, для каждой задачи - ее слова, чтобы при изменении или удалении
+ * задачи убрать ее из массивов прежних слов.
+ * <p>
+ * Запрос состоит из слов через пробел, задача должна содержать все слова запроса.
+ * Слово со звездочкой в конце ("зада*") ищется как начало слова.
+ * <p>
+ * Индекс строится целиком при первом поиске, после этого изменяется при каждом изменении задач.
+ * До первого поиска изменения задач индекс не затрагивают, поэтому заполнение
+ * и загрузка менеджера, в котором поиск не используется, не замедляются.
+ * Построение, изменение и поиск выполняются под блокировкой индекса, поэтому изменение
+ * задачи, записанной в хранилище во время построения, не теряется.
+ */
+public class TextIndex {
+    // слова для поиска целого слова
+    private final Map<String, Posting> postings;
+    // те же слова в алфавитном порядке для поиска по началу слова
+    private final TreeMap<String, Posting> sortedPostings;
+    private final IntHashMap<String[]> termsById;
+    private volatile boolean built;
+
+    public TextIndex() {
+        postings = new HashMap<>();
+        sortedPostings = new TreeMap<>();
+        termsById = new IntHashMap<>();
+    }
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * Построение индекса по всем задачам.
+     * Хранилища перебирают задачи не по возрастанию идентификатора, поэтому идентификаторы
+     * дописываются в конец массивов слов, и каждый массив сортируется один раз в конце.
+     * Слова добавляются в алфавитном порядке, что заметно быстрее добавления по одному
+     * в порядке задач. Повторный вызов для построенного индекса ничего не делает.
+     *
+     * @param stores - хранилища задач
+     */
+    public synchronized void build(Collection<? extends Collection<? extends Task>> stores) {
+        if (built) {
+            return;
+        }
+        for (Collection<? extends Task> tasks : stores) {
+            for (Task task : tasks) {
+                addTerms(task.getId(), terms(task), true);
+            }
+        }
+        String[] sortedTerms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(sortedTerms);
+        for (String term : sortedTerms) {
+            Posting posting = postings.get(term);
+            posting.sort();
+            sortedPostings.put(term, posting);
+        }
+        built = true;
+    }
+
+    /**
+     * Добавление задачи в индекс или обновление ее слов
+     *
+     * @param task - задача
+     */
+    public synchronized void put(Task task) {
+        if (!built) {
+            return;
+        }
+        int id = task.getId();
+        String[] terms = terms(task);
+        String[] oldTerms = termsById.get(id);
+        if (oldTerms != null) {
+            if (Arrays.equals(oldTerms, terms)) {
+                return;
+            }
+            remove(id);
+        }
+        for (String term : addTerms(id, terms, false)) {
+            sortedPostings.put(term, postings.get(term));
+        }
+    }
+
+    /**
+     * Добавление слов задачи в индекс целых слов
+     *
+     * @param id     - идентификатор задачи
+     * @param terms  - слова задачи
+     * @param append - дописать идентификатор в конец массивов без упорядочивания
+     * @return - слова, которых не было в индексе
+     */
+    private List<String> addTerms(int id, String[] terms, boolean append) {
+        List<String> newTerms = new ArrayList<>();
+        if (terms.length == 0) {
+            return newTerms;
+        }
+        for (int i = 0; i < terms.length; i++) {
+            Posting posting = postings.get(terms[i]);
+            if (posting == null) {
+                posting = new Posting(terms[i]);
+                postings.put(terms[i], posting);
+                newTerms.add(terms[i]);
+            }
+            if (append) {
+                posting.append(id);
+            } else {
+                posting.add(id);
+            }
+            // слово задачи хранится одним объектом со словом индекса
+            terms[i] = posting.term;
+        }
+        termsById.put(id, terms);
+        return newTerms;
+    }
+
+    /**
+     * Удаление задачи из индекса
+     *
+     * @param id - идентификатор задачи
+     */
+    public synchronized void remove(int id) {
+        String[] terms = termsById.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Posting posting = postings.get(term);
+            posting.remove(id);
+            if (posting.size == 0) {
+                removeTerm(term);
+            }
+        }
+    }
+
+    /**
+     * Удаление списка задач за один проход по массивам затронутых слов
+     *
+     * @param tasks - задачи
+     */
+    public synchronized void removeAll(Collection<? extends Task> tasks) {
+        if (!built) {
+            return;
+        }
+        IntLinkedSet removedIds = new IntLinkedSet();
+        Set<String> changedTerms = new HashSet<>();
+        for (Task task : tasks) {
+            String[] terms = termsById.remove(task.getId());
+            if (terms != null) {
+                removedIds.add(task.getId());
+                changedTerms.addAll(Arrays.asList(terms));
+            }
+        }
+        for (String term : changedTerms) {
+            Posting posting = postings.get(term);
+            posting.removeAll(removedIds);
+            if (posting.size == 0) {
+                removeTerm(term);
+            }
+        }
+    }
+
+    private void removeTerm(String term) {
+        postings.remove(term);
+        sortedPostings.remove(term);
+    }
+
+    /**
+     * Поиск задач, содержащих все слова запроса.
+     * Индекс должен быть построен методом build.
+     *
+     * @param query - слова через пробел, слово со звездочкой в конце ищется как начало слова
+     * @param limit - наибольшее число найденных задач
+     * @return - идентификаторы задач по возрастанию
+     */
+    public synchronized int[] search(String query, int limit) {
+        List<String> words = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        parseQuery(query, words, prefixes);
+        if (limit <= 0 || words.isEmpty() && prefixes.isEmpty()) {
+            return new int[0];
+        }
+
+        // перебираются задачи самого редкого слова, остальные слова проверяются для каждой задачи
+        List<Posting> wordPostings = new ArrayList<>(words.size());
+        for (String word : words) {
+            Posting posting = postings.get(word);
+            if (posting == null) {
+                return new int[0];
+            }
+            wordPostings.add(posting);
+        }
+        wordPostings.sort((posting1, posting2) -> Integer.compare(posting1.size, posting2.size));
+
+        int[] candidates;
+        int candidateCount;
+        int firstPrefix = -1;
+        if (!wordPostings.isEmpty()) {
+            candidates = wordPostings.get(0).ids;
+            candidateCount = wordPostings.get(0).size;
+        } else {
+            firstPrefix = rarestPrefix(prefixes);
+            candidates = prefixIds(prefixes.get(firstPrefix));
+            candidateCount = candidates.length;
+        }
+
+        int[] result = new int[Math.min(limit, candidateCount)];
+        int count = 0;
+        for (int i = 0; i < candidateCount && count < result.length; i++) {
+            int id = candidates[i];
+            if (matches(id, wordPostings, prefixes, firstPrefix)) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Оценка числа задач, найденных по запросу, без выполнения поиска:
+     * число задач самого редкого слова запроса
+     *
+     * @param query - запрос, как в search
+     * @return - наибольшее возможное число найденных задач
+     */
+    public synchronized int estimate(String query) {
+        List<String> words = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        parseQuery(query, words, prefixes);
+        long estimate = words.isEmpty() && prefixes.isEmpty() ? 0 : Long.MAX_VALUE;
+        for (String word : words) {
+            Posting posting = postings.get(word);
+            estimate = Math.min(estimate, posting == null ? 0 : posting.size);
+        }
+        for (String prefix : prefixes) {
+            estimate = Math.min(estimate, prefixCount(prefix));
+        }
+        return (int) Math.min(estimate, Integer.MAX_VALUE);
+    }
+
+    private boolean matches(int id, List<Posting> wordPostings, List<String> prefixes, int skippedPrefix) {
+        for (int i = 1; i < wordPostings.size(); i++) {
+            if (!wordPostings.get(i).contains(id)) {
+                return false;
+            }
+        }
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        String[] terms = termsById.get(id);
+        for (int i = 0; i < prefixes.size(); i++) {
+            if (i != skippedPrefix && !hasPrefix(terms, prefixes.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasPrefix(String[] terms, String prefix) {
+        for (String term : terms) {
+            if (term.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // начало слова с наименьшим числом задач
+    private int rarestPrefix(List<String> prefixes) {
+        int rarest = 0;
+        long rarestCount = Long.MAX_VALUE;
+        for (int i = 0; i < prefixes.size(); i++) {
+            long count = prefixCount(prefixes.get(i));
+            if (count < rarestCount) {
+                rarest = i;
+                rarestCount = count;
+            }
+        }
+        return rarest;
+    }
+
+    // число задач слов, начинающихся с prefix, с учетом повторов
+    private long prefixCount(String prefix) {
+        long count = 0;
+        for (Posting posting : prefixPostings(prefix)) {
+            count += posting.size;
+        }
+        return count;
+    }
+
+    // идентификаторы задач со словами, начинающимися с prefix, по возрастанию без повторов
+    private int[] prefixIds(String prefix) {
+        List<Posting> prefixPostings = prefixPostings(prefix);
+        if (prefixPostings.size() == 1) {
+            Posting posting = prefixPostings.get(0);
+            return Arrays.copyOf(posting.ids, posting.size);
+        }
+        int total = 0;
+        for (Posting posting : prefixPostings) {
+            total += posting.size;
+        }
+        int[] ids = new int[total];
+        int length = 0;
+        for (Posting posting : prefixPostings) {
+            System.arraycopy(posting.ids, 0, ids, length, posting.size);
+            length += posting.size;
+        }
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < length; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+
+    private List<Posting> prefixPostings(String prefix) {
+        List<Posting> result = new ArrayList<>();
+        for (Map.Entry<String, Posting> entry : sortedPostings.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    // разбор запроса на целые слова и начала слов
+    private static void parseQuery(String query, List<String> words, List<String> prefixes) {
+        if (query == null) {
+            return;
+        }
+        for (String part : query.trim().split("\\s+")) {
+            boolean prefix = part.endsWith("*");
+            List<String> tokens = tokenize(prefix ? part.substring(0, part.length() - 1) : part);
+            for (int i = 0; i < tokens.size(); i++) {
+                // звездочка относится к последнему слову части запроса
+                if (prefix && i == tokens.size() - 1) {
+                    prefixes.add(tokens.get(i));
+                } else {
+                    words.add(tokens.get(i));
+                }
+            }
+        }
+    }
+
+    // различные слова заголовка и описания задачи
+    private static String[] terms(Task task) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(task.getTitle(), tokens);
+        tokenize(task.getDescription(), tokens);
+        if (tokens.size() > 16) {
+            return new LinkedHashSet<>(tokens).toArray(new String[0]);
+        }
+        // в коротком тексте повторы проще найти перебором, чем через хеш-множество
+        String[] terms = new String[tokens.size()];
+        int count = 0;
+        for (String token : tokens) {
+            boolean repeated = false;
+            for (int i = 0; i < count && !repeated; i++) {
+                repeated = terms[i].equals(token);
+            }
+            if (!repeated) {
+                terms[count++] = token;
+            }
+        }
+        return count == terms.length ? terms : Arrays.copyOf(terms, count);
+    }
+
+    /**
+     * Разбиение текста на слова из букв и цифр в нижнем регистре с заменой "ё" на "е"
+     *
+     * @param text - текст
+     * @return - слова в порядке текста
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens);
+        return tokens;
+    }
+
+    private static void tokenize(String text, List<String> tokens) {
+        if (text == null) {
+            return;
+        }
+        char[] chars = new char[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                chars[length++] = c == 'ё' ? 'е' : c;
+            } else if (length > 0) {
+                tokens.add(new String(chars, 0, length));
+                length = 0;
+            }
+        }
+        if (length > 0) {
+            tokens.add(new String(chars, 0, length));
+        }
+    }
+
+    /**
+     * Идентификаторы задач одного слова в упорядоченном массиве.
+     * Новые задачи получают наибольшие идентификаторы, поэтому обычно добавляются в конец массива.
+     */
+    private static class Posting {
+        private final String term;
+        private int[] ids;
+        private int size;
+
+        private Posting(String term) {
+            this.term = term;
+            ids = new int[2];
+        }
+
+        private void add(int id) {
+            int position = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                position = -position - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        // добавление в конец без упорядочивания, после всех добавлений вызывается sort()
+        private void append(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private void sort() {
+            Arrays.sort(ids, 0, size);
+        }
+
+        private void remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            shrink();
+        }
+
+        private void removeAll(IntLinkedSet removedIds) {
+            int length = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removedIds.contains(ids[i])) {
+                    ids[length++] = ids[i];
+                }
+            }
+            size = length;
+            shrink();
+        }
+
+        private boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        // массив уменьшается, когда заполнен меньше чем на четверть
+        private void shrink() {
+            if (ids.length > 8 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, Math.max(size * 2, 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package query;
+
+/**
+ * План выполнения запроса: хранилище или индекс, из которого выбираются задачи-кандидаты,
+ * и оценка числа кандидатов. Остальные условия запроса проверяются для каждого кандидата.
+ */
+public class QueryPlan {
+    // способ выбора задач-кандидатов
+    public enum AccessPath {
+        // задача по идентификатору
+        ID,
+        // подзадачи по списку эпика
+        EPIC,
+        // задачи по индексу статусов
+        STATUS,
+        // задачи и подзадачи по хранилищу, упорядоченному по времени начала
+        TIME,
+        // задачи по индексу слов
+        TEXT,
+        // перебор всех задач запрошенных типов
+        SCAN
+    }
+
+    private final AccessPath accessPath;
+    private final int estimatedRows;
+
+    public QueryPlan(AccessPath accessPath, int estimatedRows) {
+        this.accessPath = accessPath;
+        this.estimatedRows = estimatedRows;
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    public int getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    @Override
+    public String toString() {
+        return accessPath + " (кандидатов не больше " + estimatedRows + ")";
+    }
+}
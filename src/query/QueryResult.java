@@ -0,0 +1,37 @@
+package query;
+
+import tasks.Task;
+
+import java.util.List;
+
+/**
+ * Результат запроса: найденные задачи, выбранный план и число просмотренных кандидатов
+ */
+public class QueryResult {
+    private final List<Task> tasks;
+    private final QueryPlan plan;
+    private final int examinedRows;
+
+    public QueryResult(List<Task> tasks, QueryPlan plan, int examinedRows) {
+        this.tasks = tasks;
+        this.plan = plan;
+        this.examinedRows = examinedRows;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public QueryPlan getPlan() {
+        return plan;
+    }
+
+    public int getExaminedRows() {
+        return examinedRows;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryResult{tasks=" + tasks.size() + ", plan=" + plan + ", examinedRows=" + examinedRows + '}';
+    }
+}
@@ -0,0 +1,146 @@
+package query;
+
+import tasks.TaskStatus;
+import tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Условия выборки задач для TaskManager.query.
+ * Все заданные условия должны выполняться одновременно, незаданные условия не проверяются.
+ * Методы задания условий возвращают этот же объект, поэтому условия задаются цепочкой:
+ * <pre>
+ * new TaskQuery().epic(epicId).status(TaskStatus.NEW)
+ *         .startingBetween(monday, nextMonday).orderBy(TaskQuery.Order.START_TIME)
+ * </pre>
+ */
+public class TaskQuery {
+    // порядок задач в результате
+    public enum Order {
+        ID,
+        START_TIME
+    }
+
+    private final Set<TaskType> types = EnumSet.allOf(TaskType.class);
+    private Integer id;
+    private TaskStatus status;
+    private Integer epicId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String text;
+    private Order order = Order.ID;
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * Ограничение типов задач
+     *
+     * @param types - допустимые типы
+     * @return - этот же запрос
+     */
+    public TaskQuery types(TaskType... types) {
+        this.types.clear();
+        this.types.addAll(Set.of(types));
+        return this;
+    }
+
+    public TaskQuery id(int id) {
+        this.id = id;
+        return this;
+    }
+
+    public TaskQuery status(TaskStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Подзадачи заданного эпика. Типы задач ограничиваются подзадачами.
+     *
+     * @param epicId - идентификатор эпика
+     * @return - этот же запрос
+     */
+    public TaskQuery epic(int epicId) {
+        this.epicId = epicId;
+        return types(TaskType.SUBTASK);
+    }
+
+    /**
+     * Задачи, начинающиеся в интервале [from, to). Задачи без времени начала не выбираются.
+     *
+     * @param from - начало интервала, null - без ограничения
+     * @param to   - окончание интервала, не включается, null - без ограничения
+     * @return - этот же запрос
+     */
+    public TaskQuery startingBetween(LocalDateTime from, LocalDateTime to) {
+        this.from = from == null ? LocalDateTime.MIN : from;
+        this.to = to == null ? LocalDateTime.MAX : to;
+        return this;
+    }
+
+    // слова заголовка и описания, как в TaskManager.search
+    public TaskQuery text(String text) {
+        this.text = text;
+        return this;
+    }
+
+    public TaskQuery orderBy(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Ограничение числа задач в результате
+     *
+     * @param limit - наибольшее число задач, не меньше нуля
+     * @return - этот же запрос
+     */
+    public TaskQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Число задач не может быть отрицательным: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public Set<TaskType> getTypes() {
+        return types;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public boolean hasTimeRange() {
+        return from != null;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,141 @@
+package storage;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Потоковое чтение задач, записанных BinaryTaskWriter.
+ * Описание формата приведено в BinaryTaskWriter.
+ */
+public class BinaryTaskReader implements Closeable {
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final DataInputStream in;
+
+    /**
+     * Конструктор. Читает и проверяет заголовок файла.
+     *
+     * @param inputStream - поток для чтения
+     * @throws IOException - если заголовок не соответствует формату
+     */
+    public BinaryTaskReader(InputStream inputStream) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(inputStream));
+        byte[] magic = new byte[BinaryTaskWriter.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, BinaryTaskWriter.MAGIC)) {
+            throw new IOException("Файл не является двоичным файлом задач.");
+        }
+        int version = in.readUnsignedByte();
+        if (version != BinaryTaskWriter.VERSION) {
+            throw new IOException("Неподдерживаемая версия формата файла: " + version);
+        }
+    }
+
+    /**
+     * Проверка сигнатуры двоичного формата в начале файла
+     *
+     * @param file - файл данных
+     * @return - true, если файл записан в двоичном формате
+     */
+    public static boolean isBinaryFile(File file) throws IOException {
+        byte[] magic = new byte[BinaryTaskWriter.MAGIC.length];
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return inputStream.readNBytes(magic, 0, magic.length) == magic.length
+                    && Arrays.equals(magic, BinaryTaskWriter.MAGIC);
+        }
+    }
+
+    /**
+     * Чтение очередной задачи
+     *
+     * @return - задача, эпик или подзадача; null, если достигнут конец данных
+     * @throws IOException - при ошибке чтения или если данные оборваны
+     */
+    public Task read() throws IOException {
+        int tag = in.readUnsignedByte();
+        if (tag == BinaryTaskWriter.TAG_END) {
+            return null;
+        }
+        if (tag != BinaryTaskWriter.TAG_TASK && tag != BinaryTaskWriter.TAG_EPIC
+                && tag != BinaryTaskWriter.TAG_SUBTASK) {
+            throw new IOException("Неизвестный тип записи: " + tag);
+        }
+
+        int id = (int) readVarLong();
+        int flags = in.readUnsignedByte();
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        if ((flags & BinaryTaskWriter.HAS_START_TIME) != 0) {
+            startTime = LocalDateTime.ofEpochSecond(readVarLong() * 60, 0, ZoneOffset.UTC);
+        }
+        if ((flags & BinaryTaskWriter.HAS_DURATION) != 0) {
+            duration = Duration.ofMinutes(readVarLong());
+        }
+        int status = in.readUnsignedByte();
+        if (status >= STATUSES.length) {
+            throw new IOException("Неизвестный статус задачи: " + status);
+        }
+        String title = readString();
+        String description = readString();
+
+        Task task;
+        if (tag == BinaryTaskWriter.TAG_SUBTASK) {
+            task = new Subtask((int) readVarLong(), title, description);
+        } else if (tag == BinaryTaskWriter.TAG_EPIC) {
+            task = new Epic(title, description);
+        } else {
+            task = new Task(title, description);
+        }
+        task.setId(id);
+        task.setStartTime(startTime);
+        task.setDuration(duration);
+        task.setStatus(STATUSES[status]);
+        return task;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String readString() throws IOException {
+        long length = readVarLong();
+        if (length == 0) {
+            return null;
+        }
+        // отрицательная длина возможна только в поврежденном файле
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Некорректная длина строки: " + (length - 1));
+        }
+        byte[] bytes = new byte[(int) length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readVarLong() throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IOException("Некорректная запись целого числа.");
+    }
+}
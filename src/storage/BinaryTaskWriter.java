@@ -0,0 +1,127 @@
+package storage;
+
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Потоковая запись задач в двоичном формате.
+ * <p>
+ * Заголовок файла - сигнатура "KNBN" и номер версии формата (1 байт).
+ * Далее следуют записи задач, каждая начинается с байта типа
+ * (1 - задача, 2 - эпик, 3 - подзадача). Признак конца данных - байт 0.
+ * <p>
+ * Поля записи: идентификатор (varint), байт признаков наличия времени начала (бит 0)
+ * и продолжительности (бит 1), время начала в минутах от 1970.01.01 00:00 (varlong),
+ * продолжительность в минутах (varlong), статус (1 байт), заголовок и описание
+ * (длина в байтах UTF-8 плюс 1, 0 для null, затем байты), для подзадачи - идентификатор эпика (varint).
+ * Целые числа записываются в zigzag-кодировке по 7 бит в байте.
+ */
+public class BinaryTaskWriter implements Closeable {
+    static final byte[] MAGIC = {'K', 'N', 'B', 'N'};
+    static final int VERSION = 1;
+
+    static final int TAG_END = 0;
+    static final int TAG_TASK = 1;
+    static final int TAG_EPIC = 2;
+    static final int TAG_SUBTASK = 3;
+
+    static final int HAS_START_TIME = 1;
+    static final int HAS_DURATION = 2;
+
+    private final DataOutputStream out;
+    private boolean finished;
+
+    /**
+     * Конструктор. Записывает заголовок файла.
+     *
+     * @param outputStream - поток для записи
+     */
+    public BinaryTaskWriter(OutputStream outputStream) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Запись задачи. Тип записи определяется классом объекта.
+     *
+     * @param task - задача, эпик или подзадача
+     */
+    public void write(Task task) throws IOException {
+        if (task instanceof Subtask) {
+            out.writeByte(TAG_SUBTASK);
+        } else if (task instanceof Epic) {
+            out.writeByte(TAG_EPIC);
+        } else {
+            out.writeByte(TAG_TASK);
+        }
+
+        writeVarLong(task.getId());
+        LocalDateTime startTime = task.getStartTime();
+        int flags = 0;
+        if (startTime != null) {
+            flags |= HAS_START_TIME;
+        }
+        if (task.getDuration() != null) {
+            flags |= HAS_DURATION;
+        }
+        out.writeByte(flags);
+        if (startTime != null) {
+            writeVarLong(Math.floorDiv(startTime.toEpochSecond(ZoneOffset.UTC), 60));
+        }
+        if (task.getDuration() != null) {
+            writeVarLong(task.getDuration().toMinutes());
+        }
+        out.writeByte(task.getStatus().ordinal());
+        writeString(task.getTitle());
+        writeString(task.getDescription());
+        if (task instanceof Subtask) {
+            writeVarLong(((Subtask) task).getEpicId());
+        }
+    }
+
+    /**
+     * Запись признака конца данных и сброс буфера в поток
+     */
+    public void finish() throws IOException {
+        if (!finished) {
+            out.writeByte(TAG_END);
+            out.flush();
+            finished = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+}
@@ -0,0 +1,114 @@
+package storage;
+
+import exceptions.LoadException;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskStatus;
+import tasks.TaskType;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Разбор строк текстового файла данных с разделителями ";".
+ * Формат строки: id;DateTime;Duration(min);type;name;status;description;epic
+ * <p>
+ * Строка разбирается либо из объекта String, либо непосредственно из буфера с байтами файла в UTF-8.
+ * Числовые поля, время, тип и статус разбираются без создания промежуточных строк,
+ * строки создаются только для наименования и описания задачи.
+ * Объект хранит промежуточные данные разбора и не должен использоваться несколькими потоками одновременно.
+ */
+public class CsvTaskParser {
+    private static final int FIELD_COUNT = 8;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final String[] TYPE_NAMES = names(TYPES);
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final String[] STATUS_NAMES = names(STATUSES);
+
+    private final String fileName;
+    private final CsvTokenizer tokenizer = new CsvTokenizer(FIELD_COUNT);
+
+    /**
+     * Конструктор
+     *
+     * @param fileName - имя файла для сообщений об ошибках
+     */
+    public CsvTaskParser(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Восстановление задачи из строки файла данных
+     *
+     * @param line - строка с описанием задачи
+     * @return - задача, эпик или подзадача; null, если строка не содержит описания задачи
+     * @throws LoadException - при ошибке в формате времени
+     */
+    public Task parse(String line) throws LoadException {
+        tokenizer.reset(line);
+        return parseFields();
+    }
+
+    /**
+     * Восстановление задачи из строки, расположенной в буфере с байтами файла
+     *
+     * @param buffer - буфер с содержимым файла в UTF-8
+     * @param start  - позиция начала строки
+     * @param end    - позиция за последним символом строки без перевода строки
+     * @return - задача, эпик или подзадача; null, если строка не содержит описания задачи
+     * @throws LoadException - при ошибке в формате времени
+     */
+    public Task parse(ByteBuffer buffer, int start, int end) throws LoadException {
+        tokenizer.reset(buffer, start, end);
+        return parseFields();
+    }
+
+    private Task parseFields() throws LoadException {
+        if (tokenizer.getFieldCount() < 7) {
+            return null;
+        }
+        int id = tokenizer.intValue(0);
+
+        LocalDateTime startTime = null;
+        if (!tokenizer.isNull(1)) {
+            try {
+                startTime = tokenizer.dateTimeValue(1);
+            } catch (DateTimeParseException e) {
+                throw new LoadException("Ошибка чтения времени из файла. "
+                        + e.getMessage(), fileName);
+            }
+        }
+        Duration duration = tokenizer.isNull(2) ? null : Duration.ofMinutes(tokenizer.intValue(2));
+
+        int typeIndex = tokenizer.indexOf(3, TYPE_NAMES);
+        if (typeIndex < 0) {
+            return null;
+        }
+        int statusIndex = tokenizer.indexOf(5, STATUS_NAMES);
+        TaskStatus status = statusIndex < 0 ? TaskStatus.valueOf(tokenizer.text(5)) : STATUSES[statusIndex];
+        String title = tokenizer.text(4);
+        String description = tokenizer.text(6);
+
+        Task task = switch (TYPES[typeIndex]) {
+            case TASK -> new Task(title, description);
+            case EPIC -> new Epic(title, description);
+            case SUBTASK -> new Subtask(tokenizer.intValue(7), title, description);
+        };
+        task.setId(id);
+        task.setStatus(status);
+        task.setStartTime(startTime);
+        task.setDuration(duration);
+        return task;
+    }
+
+    private static String[] names(Enum<?>[] values) {
+        String[] names = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name();
+        }
+        return names;
+    }
+}
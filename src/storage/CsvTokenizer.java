@@ -0,0 +1,255 @@
+package storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * Разбиение строки файла данных на поля, разделенные ";", без создания строк и массивов.
+ * Строка задается объектом CharSequence или участком буфера с байтами файла в UTF-8.
+ * Поля определяются так же, как методом String.split(";"): пустые поля в конце строки не учитываются.
+ * <p>
+ * Объект хранит границы полей последней строки и не должен использоваться несколькими потоками одновременно.
+ */
+public class CsvTokenizer {
+    private static final char SEPARATOR = ';';
+    private static final String NULL_VALUE = "null";
+
+    private final int[] fieldStart;
+    private final int[] fieldEnd;
+    private final FieldView fieldView = new FieldView();
+    private CharSequence line;
+    private ByteBuffer buffer;
+    private int fieldCount;
+    private byte[] textBuffer = new byte[256];
+
+    /**
+     * Конструктор
+     *
+     * @param maxFields - наибольшее число разбираемых полей, остаток строки не разбирается
+     */
+    public CsvTokenizer(int maxFields) {
+        fieldStart = new int[maxFields];
+        fieldEnd = new int[maxFields];
+    }
+
+    /**
+     * Разбиение строки
+     *
+     * @param line - строка
+     * @return - число полей
+     */
+    public int reset(CharSequence line) {
+        this.line = line;
+        this.buffer = null;
+        return split(0, line.length());
+    }
+
+    /**
+     * Разбиение строки, расположенной в буфере
+     *
+     * @param buffer - буфер с содержимым файла в UTF-8
+     * @param start  - позиция начала строки
+     * @param end    - позиция за последним символом строки
+     * @return - число полей
+     */
+    public int reset(ByteBuffer buffer, int start, int end) {
+        this.line = null;
+        this.buffer = buffer;
+        return split(start, end);
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Значение поля без создания строки.
+     * Возвращается один и тот же объект, действительный до следующего вызова.
+     *
+     * @param field - номер поля
+     * @return - значение поля
+     */
+    public CharSequence field(int field) {
+        Objects.checkIndex(field, fieldCount);
+        fieldView.start = fieldStart[field];
+        fieldView.end = fieldEnd[field];
+        return fieldView;
+    }
+
+    /**
+     * Значение поля в виде строки
+     *
+     * @param field - номер поля
+     * @return - значение поля
+     */
+    public String text(int field) {
+        Objects.checkIndex(field, fieldCount);
+        return text(fieldStart[field], fieldEnd[field]);
+    }
+
+    /**
+     * Проверка значения null в любом регистре
+     *
+     * @param field - номер поля
+     * @return - true, если поле содержит значение null
+     */
+    public boolean isNull(int field) {
+        Objects.checkIndex(field, fieldCount);
+        int start = fieldStart[field];
+        if (fieldEnd[field] - start != NULL_VALUE.length()) {
+            return false;
+        }
+        for (int i = 0; i < NULL_VALUE.length(); i++) {
+            if (Character.toLowerCase(charAt(start + i)) != NULL_VALUE.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Поиск значения поля в списке имен
+     *
+     * @param field - номер поля
+     * @param names - список имен
+     * @return - номер имени, совпадающего со значением поля, или -1
+     */
+    public int indexOf(int field, String[] names) {
+        Objects.checkIndex(field, fieldCount);
+        int start = fieldStart[field];
+        int length = fieldEnd[field] - start;
+        for (int n = 0; n < names.length; n++) {
+            String name = names[n];
+            if (name.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && charAt(start + i) == name.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Разбор целого числа.
+     * Десятичные значения разбираются по цифрам, значения в другой записи - методом Integer.decode.
+     * Число из нескольких цифр с ведущим нулем Integer.decode читает как восьмеричное,
+     * поэтому такие значения тоже разбираются им, а не по цифрам.
+     *
+     * @param field - номер поля
+     * @return - значение поля
+     * @throws NumberFormatException - если поле не содержит целого числа
+     */
+    public int intValue(int field) throws NumberFormatException {
+        Objects.checkIndex(field, fieldCount);
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = start < end && charAt(start) == '-';
+        int i = negative || (start < end && charAt(start) == '+') ? start + 1 : start;
+        if (i == end || end - i > 9 || end - i > 1 && charAt(i) == '0') {
+            return Integer.decode(text(field));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.decode(text(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Разбор времени в формате "yyyy.MM.dd HH:mm"
+     *
+     * @param field - номер поля
+     * @return - значение поля
+     * @throws DateTimeParseException - если поле не соответствует формату
+     */
+    public LocalDateTime dateTimeValue(int field) throws DateTimeParseException {
+        return DateTimeCodec.parse(field(field));
+    }
+
+    private int split(int start, int end) {
+        int count = 0;
+        int fieldBegin = start;
+        int i = start;
+        for (; i < end && count < fieldStart.length; i++) {
+            if (charAt(i) == SEPARATOR) {
+                fieldStart[count] = fieldBegin;
+                fieldEnd[count] = i;
+                count++;
+                fieldBegin = i + 1;
+            }
+        }
+        if (count < fieldStart.length) {
+            fieldStart[count] = fieldBegin;
+            fieldEnd[count] = end;
+            count++;
+        }
+        // пустые поля в конце строки отбрасываются, только если строка разобрана до конца
+        if (i >= end) {
+            while (count > 0 && fieldStart[count - 1] == fieldEnd[count - 1]) {
+                count--;
+            }
+        }
+        fieldCount = count;
+        return count;
+    }
+
+    // символ строки; байты буфера вне ASCII не совпадают ни с одним символом формата
+    private char charAt(int index) {
+        if (line != null) {
+            return line.charAt(index);
+        }
+        return (char) (buffer.get(index) & 0xFF);
+    }
+
+    /**
+     * Значение поля без копирования символов
+     */
+    private class FieldView implements CharSequence {
+        private int start;
+        private int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return CsvTokenizer.this.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().subSequence(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return text(start, end);
+        }
+    }
+
+    private String text(int start, int end) {
+        if (line != null) {
+            return line.subSequence(start, end).toString();
+        }
+        int length = end - start;
+        if (textBuffer.length < length) {
+            textBuffer = new byte[Math.max(length, textBuffer.length * 2)];
+        }
+        buffer.get(start, textBuffer, 0, length);
+        return new String(textBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,86 @@
+package storage;
+
+import tasks.Task;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Быстрый разбор и запись времени в формате файла данных "yyyy.MM.dd HH:mm" (Task.DATE_TIME_FORMATTER).
+ * Значения фиксированной длины разбираются и записываются по цифрам без создания промежуточных объектов.
+ * Остальные значения (годы до нашей эры, недопустимые даты) обрабатываются Task.DATE_TIME_FORMATTER,
+ * чтобы результат и ошибки совпадали.
+ */
+public final class DateTimeCodec {
+    // длина значения "yyyy.MM.dd HH:mm"
+    private static final int LENGTH = 16;
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * Разбор времени
+     *
+     * @param text - значение в формате "yyyy.MM.dd HH:mm"
+     * @return - время
+     * @throws DateTimeParseException - если значение не соответствует формату
+     */
+    public static LocalDateTime parse(CharSequence text) throws DateTimeParseException {
+        if (text.length() == LENGTH && text.charAt(4) == '.' && text.charAt(7) == '.'
+                && text.charAt(10) == ' ' && text.charAt(13) == ':') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            int hour = digits(text, 11, 13);
+            int minute = digits(text, 14, 16);
+            if (year > 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute);
+                } catch (DateTimeException e) {
+                    // недопустимые значения полей: сообщение об ошибке формирует DATE_TIME_FORMATTER
+                }
+            }
+        }
+        return LocalDateTime.parse(text, Task.DATE_TIME_FORMATTER);
+    }
+
+    /**
+     * Запись времени в формате "yyyy.MM.dd HH:mm"
+     *
+     * @param builder  - строка, в которую дописывается значение
+     * @param dateTime - время
+     * @return - строка builder
+     */
+    public static StringBuilder append(StringBuilder builder, LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 1 || year > 9999) {
+            return builder.append(dateTime.format(Task.DATE_TIME_FORMATTER));
+        }
+        appendDigits(builder, year, 4).append('.');
+        appendDigits(builder, dateTime.getMonthValue(), 2).append('.');
+        appendDigits(builder, dateTime.getDayOfMonth(), 2).append(' ');
+        appendDigits(builder, dateTime.getHour(), 2).append(':');
+        return appendDigits(builder, dateTime.getMinute(), 2);
+    }
+
+    // значение десятичных цифр в позициях [start, end) или -1
+    private static int digits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static StringBuilder appendDigits(StringBuilder builder, int value, int width) {
+        for (int divider = width == 4 ? 1000 : 10; divider > 0; divider /= 10) {
+            builder.append((char) ('0' + value / divider % 10));
+        }
+        return builder;
+    }
+}
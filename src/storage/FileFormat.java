@@ -0,0 +1,9 @@
+package storage;
+
+/**
+ * Формат файла данных менеджера задач
+ */
+public enum FileFormat {
+    CSV,
+    BINARY
+}
@@ -0,0 +1,229 @@
+package storage;
+
+import tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Загрузка задач из текстового файла данных с разбором частей файла в параллельных потоках.
+ * Файл читается в буфер и делится на части по границам строк, части разбираются
+ * непосредственно из буфера в пуле fork-join,
+ * результаты объединяются в порядке следования строк в файле.
+ * <p>
+ * Файл до 64 МБ читается обычным чтением из канала, больший файл отображается в память.
+ * Отображение освобождается только при сборке мусора, до этого в Windows файл нельзя
+ * заменить или переименовать, поэтому первое сохранение после загрузки большого файла
+ * в Windows может завершиться ошибкой.
+ */
+public class ParallelCsvLoader {
+    // минимальный размер части файла, которую выгодно разбирать в отдельном потоке
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    // наибольший размер одного отображаемого в память участка файла
+    private static final int MAX_WINDOW_SIZE = 1 << 30;
+    // наибольший размер файла, который читается без отображения в память
+    private static final long MAX_READ_SIZE = 1 << 26;
+
+    private final File file;
+    private final int chunkSize;
+    private final int windowSize;
+
+    public ParallelCsvLoader(File file) {
+        this(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param file      - файл данных
+     * @param chunkSize - размер части файла в байтах
+     */
+    public ParallelCsvLoader(File file, int chunkSize) {
+        this(file, chunkSize, MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param file       - файл данных
+     * @param chunkSize  - размер части файла в байтах
+     * @param windowSize - наибольший размер участка файла, отображаемого в память за один раз
+     */
+    public ParallelCsvLoader(File file, int chunkSize, int windowSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Размер части файла должен быть больше нуля: " + chunkSize);
+        }
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("Размер участка файла должен быть больше единицы: " + windowSize);
+        }
+        this.file = file;
+        this.chunkSize = chunkSize;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Чтение и разбор всех строк файла, кроме первой строки с наименованиями полей
+     *
+     * @return - задачи, эпики и подзадачи в порядке следования в файле
+     */
+    public List<Task> load() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            boolean header = true;
+            while (position < size) {
+                int length = (int) Math.min(windowSize, size - position);
+                ByteBuffer buffer = size <= MAX_READ_SIZE
+                        ? read(channel, position, length)
+                        : channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                // участок заканчивается последним целым переводом строки,
+                // оборванная строка переходит в следующий участок
+                int end = length;
+                if (position + length < size) {
+                    end = lastLineEnd(buffer, length);
+                    if (end == 0) {
+                        throw new IOException("Строка файла длиннее допустимого размера участка: " + windowSize);
+                    }
+                }
+
+                int start = 0;
+                if (header) {
+                    // первая строка содержит наименования полей
+                    start = nextLine(buffer, 0, end);
+                    header = false;
+                }
+                tasks.addAll(parse(buffer, start, end));
+                position += end;
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Чтение участка файла в буфер в куче
+     *
+     * @param channel  - канал файла
+     * @param position - начало участка
+     * @param length   - размер участка
+     * @return - буфер с содержимым участка
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Файл изменился во время чтения.");
+            }
+        }
+        return buffer;
+    }
+
+    private List<Task> parse(ByteBuffer buffer, int start, int end) {
+        ChunkTask task = new ChunkTask(buffer, start, end);
+        if (end - start <= chunkSize) {
+            return task.compute();
+        }
+        return ForkJoinPool.commonPool().invoke(task);
+    }
+
+    /**
+     * Поиск начала следующей строки.
+     * Байт перевода строки не встречается внутри многобайтовых символов UTF-8,
+     * поэтому части файла можно разбирать независимо.
+     *
+     * @param buffer - содержимое файла
+     * @param from   - позиция, с которой начинается поиск
+     * @param end    - конец данных
+     * @return - позиция за ближайшим переводом строки или конец данных
+     */
+    private static int nextLine(ByteBuffer buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    // позиция за последним переводом строки или 0
+    private static int lastLineEnd(ByteBuffer buffer, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Разбор части файла. Часть больше заданного размера делится пополам по границе строки.
+     */
+    private class ChunkTask extends RecursiveTask<List<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        // буфер файла не сериализуется, задача разбора выполняется только в пуле потоков
+        private final transient ByteBuffer buffer;
+        private final int start;
+        private final int end;
+
+        private ChunkTask(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            if (end - start > chunkSize) {
+                int middle = nextLine(buffer, start + (end - start) / 2, end);
+                if (middle < end) {
+                    ChunkTask left = new ChunkTask(buffer, start, middle);
+                    ChunkTask right = new ChunkTask(buffer, middle, end);
+                    right.fork();
+                    List<Task> tasks = left.compute();
+                    tasks.addAll(right.join());
+                    return tasks;
+                }
+            }
+
+            List<Task> tasks = new ArrayList<>();
+            CsvTaskParser parser = new CsvTaskParser(file.getAbsolutePath());
+            int lineStart = start;
+            while (lineStart < end) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int next = lineEnd + 1;
+                if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                if (!isBlank(lineStart, lineEnd)) {
+                    Task task = parser.parse(buffer, lineStart, lineEnd);
+                    if (task != null) {
+                        tasks.add(task);
+                    }
+                }
+                lineStart = next;
+            }
+            return tasks;
+        }
+
+        private boolean isBlank(int from, int to) {
+            for (int i = from; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b != ' ' && b != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package storage;
+
+/**
+ * Режим принудительной записи файлов данных на диск
+ */
+public enum SyncPolicy {
+    // запись на диск выполняет операционная система в удобный для нее момент
+    NONE,
+    // содержимое файла записывается на диск до замены старого файла данных
+    DATA,
+    // дополнительно записываются метаданные файла и каталога, в котором выполнена замена
+    FULL
+}
@@ -1,31 +1,37 @@
 package tasks;
 
+import util.IntLinkedSet;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.PrimitiveIterator;
 
 public class Epic extends Task {
-    private List<Integer> subtaskList;
+    // идентификаторы подзадач в порядке добавления
+    private final IntLinkedSet subtaskList;
     private LocalDateTime endTime;
     private Duration duration;
 
     // конструктор с параметрами "имя", "описание"
     public Epic(String title, String description) {
         super(title, description);
-        subtaskList = new ArrayList<>();
+        subtaskList = new IntLinkedSet();
     }
 
     // конструктор с одним параметром "имя"
     public Epic(String title) {
         super(title);
-        subtaskList = new ArrayList<>();
+        subtaskList = new IntLinkedSet();
     }
 
     // Конструктор копирования объекта
     public Epic(Epic original) {
         super(original);
-        subtaskList = new ArrayList<>(original.getSubtasks());
+        subtaskList = new IntLinkedSet();
+        for (PrimitiveIterator.OfInt iterator = original.subtaskList.iterator(); iterator.hasNext(); ) {
+            subtaskList.add(iterator.nextInt());
+        }
     }
 
     // Переопределяем метод отображения объекта
@@ -57,26 +63,35 @@ public class Epic extends Task {
 
     // получение списка идентификаторов подзадач
     public ArrayList<Integer> getSubtasks() {
-        return new ArrayList<>(subtaskList);
+        ArrayList<Integer> subtasks = new ArrayList<>(subtaskList.size());
+        for (PrimitiveIterator.OfInt iterator = subtaskList.iterator(); iterator.hasNext(); ) {
+            subtasks.add(iterator.nextInt());
+        }
+        return subtasks;
+    }
+
+    // перебор идентификаторов подзадач без копирования списка, только для чтения
+    public PrimitiveIterator.OfInt subtaskIterator() {
+        return subtaskList.iterator();
+    }
+
+    // число подзадач эпика
+    public int getSubtaskCount() {
+        return subtaskList.size();
     }
 
     // метод добавления идентификатора подзадачи в список эпика
     public void addSubtask(Integer subtaskId) {
-        int index = subtaskList.indexOf(subtaskId);
-        // Если идентификатор уже существует или равен идентификатору эпика
-        // выходим без добавления задачи
-        if ((index >= 0) || (subtaskId == getId())) return;
+        // Если идентификатор равен идентификатору эпика выходим без добавления задачи,
+        // повторно существующий идентификатор не добавляется
+        if (subtaskId == getId()) return;
 
         subtaskList.add(subtaskId);
     }
 
     // Удаление идентификатора подзадачи из списка эпика
     public void removeSubtask(Integer subtaskId) {
-        int index = subtaskList.indexOf(subtaskId);
-        if (index < 0) {
-            return;
-        }
-        subtaskList.remove(index);
+        subtaskList.remove(subtaskId);
     }
 
     public void removeAllSubtasks() {
@@ -87,7 +102,20 @@ public class Epic extends Task {
     // метод переписывания списка подзадач, массивом новых идентификаторов
     public void reloadSubtakList(ArrayList<Integer> newSubtaskList) {
         subtaskList.clear();
-        subtaskList.addAll(newSubtaskList);
+        for (Integer subtaskId : newSubtaskList) {
+            subtaskList.add(subtaskId);
+        }
+    }
+
+    // метод переписывания списка подзадач списком другого эпика
+    public void reloadSubtakList(Epic epic) {
+        if (epic == this) {
+            return;
+        }
+        subtaskList.clear();
+        for (PrimitiveIterator.OfInt iterator = epic.subtaskIterator(); iterator.hasNext(); ) {
+            subtaskList.add(iterator.nextInt());
+        }
     }
 
     @Override
@@ -0,0 +1,48 @@
+package tasks;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Свободный интервал времени между задачами.
+ * Задача не пересекается с другими задачами, если начинается не раньше начала интервала
+ * и завершается не позже его окончания. Окончание null означает интервал без ограничения.
+ */
+public class TimeSlot {
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    public TimeSlot(LocalDateTime start, LocalDateTime end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TimeSlot timeSlot = (TimeSlot) o;
+        return Objects.equals(start, timeSlot.start) && Objects.equals(end, timeSlot.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeSlot{" +
+                "start='" + start.format(Task.DATE_TIME_FORMATTER) + '\'' +
+                ", end='" + (end == null ? "null" : end.format(Task.DATE_TIME_FORMATTER)) + '\'' +
+                '}';
+    }
+}
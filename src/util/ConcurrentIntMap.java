@@ -0,0 +1,127 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Таблица с ключами типа int для параллельной работы на основе ConcurrentHashMap.
+ * Чтение и запись по разным ключам выполняются без общей блокировки.
+ * <p>
+ * Список snapshot() строится при первом запросе и хранится вместе с номером версии таблицы.
+ * Каждое изменение увеличивает номер версии после записи в таблицу, поэтому список,
+ * построенный параллельно с изменением, получает прежний номер и перестраивается при следующем запросе.
+ *
+ * @param <V> - тип значений
+ */
+public class ConcurrentIntMap<V> implements IntMap<V> {
+    private final ConcurrentHashMap<Integer, V> map;
+    private final AtomicLong version;
+    // неизменяемый список значений с версией таблицы, по которой он построен
+    private volatile Snapshot<V> snapshot;
+
+    public ConcurrentIntMap() {
+        map = new ConcurrentHashMap<>();
+        version = new AtomicLong();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public V get(int key) {
+        return map.get(key);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        V oldValue = map.put(key, value);
+        if (oldValue != value) {
+            version.incrementAndGet();
+        }
+        return oldValue;
+    }
+
+    @Override
+    public V computeIfAbsent(int key, IntFunction<? extends V> factory) {
+        V value = map.get(key);
+        if (value == null) {
+            V created = factory.apply(key);
+            value = map.putIfAbsent(key, created);
+            if (value == null) {
+                value = created;
+                version.incrementAndGet();
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public V remove(int key) {
+        V oldValue = map.remove(key);
+        if (oldValue != null) {
+            version.incrementAndGet();
+        }
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        version.incrementAndGet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return Collections.unmodifiableCollection(map.values());
+    }
+
+    @Override
+    public List<V> snapshot() {
+        long currentVersion = version.get();
+        Snapshot<V> cached = snapshot;
+        if (cached != null && cached.version == currentVersion) {
+            return cached.list;
+        }
+        @SuppressWarnings("unchecked")
+        Map.Entry<Integer, V>[] entries = map.entrySet().toArray(new Map.Entry[0]);
+        Arrays.sort(entries, Map.Entry.comparingByKey());
+        Object[] array = new Object[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            array[i] = entries[i].getValue();
+        }
+        @SuppressWarnings("unchecked")
+        List<V> list = (List<V>) List.of(array);
+        snapshot = new Snapshot<>(currentVersion, list);
+        return list;
+    }
+
+    private static class Snapshot<V> {
+        private final long version;
+        private final List<V> list;
+
+        private Snapshot(long version, List<V> list) {
+            this.version = version;
+            this.list = list;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Хеш-таблица с ключами типа int и открытой адресацией.
+ * Ключи и значения хранятся в массивах без упаковки ключей в Integer и без объектов-узлов.
+ * <p>
+ * Номер ячейки - старшие биты произведения ключа на 2^32 / φ (фибоначчиево хеширование).
+ * Ключи с одинаковыми младшими битами, например идентификаторы с шагом 1024,
+ * распределяются по таблице равномерно, а не собираются в одну цепочку.
+ * Перебор таблицы идет в порядке ячеек, не совпадающем с порядком ключей,
+ * список snapshot() упорядочен по возрастанию ключей.
+ * При коллизии используется следующая свободная ячейка, при удалении последующие ключи
+ * сдвигаются назад, поэтому признаков удаленных ячеек нет.
+ * Значения null не допускаются: свободная ячейка обозначается значением null.
+ * <p>
+ * Для чтения без копирования таблица хранит неизменяемый список значений,
+ * который строится при первом запросе и сбрасывается при любом изменении таблицы.
+ *
+ * @param <V> - тип значений
+ */
+public class IntHashMap<V> implements IntMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    // 2^32 / φ - множитель фибоначчиева хеширования
+    private static final int FIBONACCI_MULTIPLIER = 0x9E3779B9;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    // сдвиг произведения, оставляющий номер ячейки: 32 - log2(размер таблицы)
+    private int shift;
+    private int size;
+    private int threshold;
+    private int modCount;
+    // неизменяемый список значений, null - список устарел
+    private volatile List<V> snapshot;
+
+    public IntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param expectedSize - ожидаемое число элементов
+     */
+    public IntHashMap(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Чтение значения по ключу
+     *
+     * @param key - ключ
+     * @return - значение или null, если ключа нет
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(int key) {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Запись значения по ключу
+     *
+     * @param key   - ключ
+     * @param value - значение, не null
+     * @return - прежнее значение или null
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V oldValue = (V) values[slot];
+                values[slot] = value;
+                if (oldValue != value) {
+                    snapshot = null;
+                }
+                return oldValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        modCount++;
+        snapshot = null;
+        if (++size > threshold) {
+            resize(values.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Чтение значения с созданием при отсутствии ключа
+     *
+     * @param key     - ключ
+     * @param factory - создание значения по ключу
+     * @return - существующее или созданное значение
+     */
+    @Override
+    public V computeIfAbsent(int key, IntFunction<? extends V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Удаление значения по ключу
+     *
+     * @param key - ключ
+     * @return - удаленное значение или null
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V oldValue = (V) values[slot];
+        removeSlot(slot);
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+        snapshot = null;
+    }
+
+    /**
+     * Перебор ключей в порядке расположения в таблице
+     *
+     * @param action - действие для каждого ключа
+     */
+    public void forEachKey(IntConsumer action) {
+        int expectedModCount = modCount;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                action.accept(keys[slot]);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Значения таблицы только для чтения, в порядке расположения в таблице.
+     * Изменение таблицы во время перебора приводит к ConcurrentModificationException.
+     *
+     * @return - значения таблицы
+     */
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Неизменяемый список значений по возрастанию ключей на момент последнего изменения.
+     * Пока таблица не изменяется, возвращается один и тот же список без копирования значений.
+     * Ранее полученные списки после изменения таблицы остаются прежними.
+     *
+     * @return - список значений
+     */
+    @Override
+    public List<V> snapshot() {
+        List<V> list = snapshot;
+        if (list == null) {
+            // ключ в старших битах, номер ячейки в младших: сортировка чисел упорядочивает ячейки по ключам
+            long[] slots = new long[size];
+            int index = 0;
+            for (int slot = 0; slot < values.length; slot++) {
+                if (values[slot] != null) {
+                    slots[index++] = (long) keys[slot] << 32 | slot;
+                }
+            }
+            Arrays.sort(slots);
+            Object[] array = new Object[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = values[(int) slots[i]];
+            }
+            @SuppressWarnings("unchecked")
+            List<V> copy = (List<V>) List.of(array);
+            list = copy;
+            snapshot = list;
+        }
+        return list;
+    }
+
+    // исходная ячейка ключа
+    private int slot(int key) {
+        return (key * FIBONACCI_MULTIPLIER) >>> shift;
+    }
+
+    private int find(int key) {
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Освобождение ячейки со сдвигом назад следующих ключей той же цепочки,
+     * чтобы поиск не прерывался на освободившейся ячейке
+     */
+    private void removeSlot(int slot) {
+        int free = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (values[next] == null) {
+                break;
+            }
+            int home = slot(keys[next]);
+            // ключ остается на месте, если его исходная ячейка находится между free и next
+            boolean stays = free <= next
+                    ? free < home && home <= next
+                    : free < home || home <= next;
+            if (!stays) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        values[free] = null;
+        size--;
+        modCount++;
+        snapshot = null;
+    }
+
+    private void resize(int newLength) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newLength);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int length) {
+        keys = new int[length];
+        values = new Object[length];
+        mask = length - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        threshold = length / 4 * 3;
+    }
+
+    // размер таблицы - степень двойки с заполнением не более 3/4
+    private static int tableSize(int expectedSize) {
+        int length = DEFAULT_CAPACITY;
+        while (length / 4 * 3 < expectedSize) {
+            length *= 2;
+        }
+        return length;
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private final int expectedModCount = modCount;
+        private int slot = nextSlot(0);
+
+        private int nextSlot(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return slot < values.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (slot >= values.length) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[slot];
+            slot = nextSlot(slot + 1);
+            return value;
+        }
+    }
+}
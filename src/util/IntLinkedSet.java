@@ -0,0 +1,240 @@
+package util;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Множество значений типа int с сохранением порядка добавления.
+ * Значения хранятся в массиве в порядке добавления, хеш-таблица с открытой адресацией
+ * хранит позиции значений в массиве. Добавление, удаление и проверка наличия выполняются за O(1).
+ * Номер ячейки таблицы вычисляется фибоначчиевым хешированием, как в IntHashMap.
+ * Удаленные значения оставляют в массиве пропуски, массив уплотняется,
+ * когда пропусков становится больше, чем значений.
+ */
+public class IntLinkedSet {
+    private static final int MIN_TABLE_LENGTH = 8;
+    private static final int MIN_COMPACT_HOLES = 16;
+    // 2^32 / φ - множитель фибоначчиева хеширования
+    private static final int FIBONACCI_MULTIPLIER = 0x9E3779B9;
+
+    // значения в порядке добавления, с пропусками на месте удаленных
+    private int[] elements;
+    private boolean[] removed;
+    private int length;
+    // хеш-таблица: позиция значения в elements плюс 1, 0 - свободная ячейка
+    private int[] table;
+    private int mask;
+    // сдвиг произведения, оставляющий номер ячейки: 32 - log2(размер таблицы)
+    private int shift;
+    private int size;
+    private int modCount;
+
+    public IntLinkedSet() {
+        elements = new int[MIN_TABLE_LENGTH / 2];
+        removed = new boolean[elements.length];
+        allocateTable(MIN_TABLE_LENGTH);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return findSlot(value) >= 0;
+    }
+
+    /**
+     * Добавление значения в конец множества
+     *
+     * @param value - значение
+     * @return - true, если значения еще не было в множестве
+     */
+    public boolean add(int value) {
+        if (contains(value)) {
+            return false;
+        }
+        if (length == elements.length) {
+            if (length - size >= MIN_COMPACT_HOLES && length - size > size) {
+                compact();
+            } else {
+                elements = Arrays.copyOf(elements, length * 2);
+                removed = Arrays.copyOf(removed, length * 2);
+            }
+        }
+        elements[length] = value;
+        removed[length] = false;
+        length++;
+        size++;
+        if (size > table.length / 4 * 3) {
+            rebuildTable(table.length * 2);
+        } else {
+            insert(value, length - 1);
+        }
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Удаление значения
+     *
+     * @param value - значение
+     * @return - true, если значение было в множестве
+     */
+    public boolean remove(int value) {
+        int slot = findSlot(value);
+        if (slot < 0) {
+            return false;
+        }
+        int position = table[slot] - 1;
+        removed[position] = true;
+        removeSlot(slot);
+        size--;
+        modCount++;
+        if (size == 0) {
+            length = 0;
+        } else if (position == length - 1) {
+            // пропуски в конце массива отбрасываются сразу
+            while (removed[length - 1]) {
+                length--;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        length = 0;
+        size = 0;
+        Arrays.fill(table, 0);
+        modCount++;
+    }
+
+    /**
+     * Перебор значений в порядке добавления.
+     * Итератор только для чтения, изменение множества во время перебора
+     * приводит к ConcurrentModificationException.
+     *
+     * @return - итератор значений
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final int expectedModCount = modCount;
+            private int position = skipRemoved(0);
+
+            @Override
+            public boolean hasNext() {
+                return position < length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (position >= length) {
+                    throw new NoSuchElementException();
+                }
+                int value = elements[position];
+                position = skipRemoved(position + 1);
+                return value;
+            }
+        };
+    }
+
+    public int[] toArray() {
+        int[] values = new int[size];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (!removed[i]) {
+                values[count++] = elements[i];
+            }
+        }
+        return values;
+    }
+
+    private int skipRemoved(int position) {
+        while (position < length && removed[position]) {
+            position++;
+        }
+        return position;
+    }
+
+    // исходная ячейка значения
+    private int slot(int value) {
+        return (value * FIBONACCI_MULTIPLIER) >>> shift;
+    }
+
+    private int findSlot(int value) {
+        int slot = slot(value);
+        while (table[slot] != 0) {
+            if (elements[table[slot] - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int value, int position) {
+        int slot = slot(value);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = position + 1;
+    }
+
+    // освобождение ячейки со сдвигом назад следующих значений той же цепочки
+    private void removeSlot(int slot) {
+        int free = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (table[next] == 0) {
+                break;
+            }
+            int home = slot(elements[table[next] - 1]);
+            boolean stays = free <= next
+                    ? free < home && home <= next
+                    : free < home || home <= next;
+            if (!stays) {
+                table[free] = table[next];
+                free = next;
+            }
+        }
+        table[free] = 0;
+    }
+
+    // удаление пропусков из массива значений
+    private void compact() {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (!removed[i]) {
+                elements[count] = elements[i];
+                removed[count] = false;
+                count++;
+            }
+        }
+        length = count;
+        rebuildTable(table.length);
+    }
+
+    private void rebuildTable(int tableLength) {
+        allocateTable(tableLength);
+        for (int i = 0; i < length; i++) {
+            if (!removed[i]) {
+                insert(elements[i], i);
+            }
+        }
+    }
+
+    private void allocateTable(int tableLength) {
+        table = new int[tableLength];
+        mask = tableLength - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+}
@@ -0,0 +1,67 @@
+package util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Таблица значений с ключами типа int.
+ * Реализации: IntHashMap для работы в одном потоке и ConcurrentIntMap для параллельной работы.
+ * Значения null не допускаются.
+ *
+ * @param <V> - тип значений
+ */
+public interface IntMap<V> {
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * Чтение значения по ключу
+     *
+     * @param key - ключ
+     * @return - значение или null, если ключа нет
+     */
+    V get(int key);
+
+    boolean containsKey(int key);
+
+    /**
+     * Запись значения по ключу
+     *
+     * @param key   - ключ
+     * @param value - значение, не null
+     * @return - прежнее значение или null
+     */
+    V put(int key, V value);
+
+    /**
+     * Чтение значения с созданием при отсутствии ключа
+     *
+     * @param key     - ключ
+     * @param factory - создание значения по ключу
+     * @return - существующее или созданное значение
+     */
+    V computeIfAbsent(int key, IntFunction<? extends V> factory);
+
+    /**
+     * Удаление значения по ключу
+     *
+     * @param key - ключ
+     * @return - удаленное значение или null
+     */
+    V remove(int key);
+
+    void clear();
+
+    // значения таблицы только для чтения
+    Collection<V> values();
+
+    /**
+     * Неизменяемый список значений по возрастанию ключей.
+     * Пока таблица не изменяется, возвращается один и тот же список без копирования значений.
+     *
+     * @return - список значений
+     */
+    List<V> snapshot();
+}
@@ -46,6 +46,15 @@ public class SimpleLinkedList<T> implements Iterable<T> {
         return head.getData();
     }
 
+    /**
+     * чтение первого узла списка
+     *
+     * @return - первый узел списка или null, если список пуст
+     */
+    public Node<T> getFirstNode() {
+        return head;
+    }
+
     /**
      * добавление элемента в конец списка
      *
@@ -129,6 +138,7 @@ public class SimpleLinkedList<T> implements Iterable<T> {
         final Node<T> oldTail = tail;
         tail = node;
         tail.setPrev(oldTail);
+        tail.setNext(null);
         if (oldTail == null) {
             head = node;
         } else {
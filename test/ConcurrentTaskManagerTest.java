@@ -0,0 +1,181 @@
+import exceptions.TaskCrossTimeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 300;
+
+    ConcurrentTaskManagerTest() {
+        super(new ConcurrentTaskManager());
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        manager.clear();
+    }
+
+    /**
+     * Нагрузочный тест: несколько потоков одновременно добавляют, изменяют и читают подзадачи.
+     * После завершения проверяем уникальность идентификаторов, отсутствие пересечений по времени
+     * и соответствие статуса эпиков статусам их подзадач.
+     */
+    @Test
+    void concurrentWriters() throws InterruptedException, ExecutionException {
+        final int epicId1 = manager.addNewEpic(new Epic("Test concurrentWriters Epic1", "-"));
+        final int epicId2 = manager.addNewEpic(new Epic("Test concurrentWriters Epic2", "-"));
+        final LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        final AtomicInteger added = new AtomicInteger();
+        final Set<Integer> ids = Collections.synchronizedSet(new HashSet<>());
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    int epicId = random.nextBoolean() ? epicId1 : epicId2;
+                    try {
+                        int id = manager.addNewSubtask(new Subtask(epicId, "Subtask",
+                                "-", startTime.plusMinutes(random.nextInt(20000)),
+                                Duration.ofMinutes(10)));
+                        assertTrue(ids.add(id), "Идентификатор выдан повторно: " + id);
+                        added.incrementAndGet();
+                    } catch (TaskCrossTimeException e) {
+                        // пересечение по времени - задача не добавлена
+                    }
+
+                    List<Subtask> subtasks = manager.getSubtasksByEpic(epicId);
+                    if (!subtasks.isEmpty()) {
+                        Subtask subtask = new Subtask(subtasks.get(random.nextInt(subtasks.size())));
+                        subtask.setStatus(TaskStatus.values()[random.nextInt(3)]);
+                        manager.updateSubtask(subtask);
+                    }
+                    manager.getPrioritizedTasks();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Потоки не завершились.");
+        for (Future<Object> future : futures) {
+            future.get(); // передаем в тест ошибки, возникшие в потоках
+        }
+
+        assertEquals(added.get(), manager.getSubtaskList().size(),
+                "Число подзадач не соответствует числу успешных добавлений.");
+
+        List<Task> prioritizedTasks = manager.getPrioritizedTasks();
+        for (int i = 1; i < prioritizedTasks.size(); i++) {
+            Task task1 = prioritizedTasks.get(i - 1);
+            Task task2 = prioritizedTasks.get(i);
+            assertTrue(task1.getEndTime().isBefore(task2.getStartTime()),
+                    "Пересечение задач по времени :\n" + task1 + "\n" + task2);
+        }
+
+        for (int epicId : List.of(epicId1, epicId2)) {
+            Epic epic = manager.getEpic(epicId);
+            List<Subtask> subtasks = manager.getSubtasksByEpic(epicId);
+            assertEquals(epic.getSubtasks().size(), subtasks.size(),
+                    "Список подзадач эпика не соответствует подзадачам менеджера.");
+            assertEquals(expectedStatus(subtasks), epic.getStatus(),
+                    "Статус эпика не соответствует статусам подзадач.\n" + epic);
+        }
+    }
+
+    /**
+     * Изменения подзадач разных эпиков не ждут друг друга.
+     * Первый поток останавливается внутри добавления подзадачи эпика 1, удерживая его блокировку.
+     * Добавление подзадачи эпика 2 в это время завершается, а добавление в эпик 1 ждет первый поток.
+     */
+    @Test
+    void differentEpicsDoNotSerialize() throws Exception {
+        final int epicId1 = manager.addNewEpic(new Epic("Test differentEpics Epic1", "-"));
+        final int epicId2 = manager.addNewEpic(new Epic("Test differentEpics Epic2", "-"));
+        assertNotEquals(ConcurrentTaskManager.stripeIndex(epicId1), ConcurrentTaskManager.stripeIndex(epicId2),
+                "Эпики теста попали под одну блокировку.");
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean blocked = new AtomicBoolean();
+        // статус читается менеджером при записи подзадачи, поток останавливается на первом чтении
+        final Subtask blockingSubtask = new Subtask(epicId1, "Blocking subtask") {
+            @Override
+            public TaskStatus getStatus() {
+                if (blocked.compareAndSet(false, true)) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getStatus();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<Integer> blockedWriter = executor.submit(() -> manager.addNewSubtask(blockingSubtask));
+            assertTrue(entered.await(10, TimeUnit.SECONDS), "Поток не начал добавление подзадачи.");
+
+            Future<Integer> otherEpicWriter = executor.submit(() ->
+                    manager.addNewSubtask(new Subtask(epicId2, "Other epic subtask")));
+            assertTrue(otherEpicWriter.get(10, TimeUnit.SECONDS) >= 0,
+                    "Подзадача другого эпика не добавлена.");
+
+            Future<Integer> sameEpicWriter = executor.submit(() ->
+                    manager.addNewSubtask(new Subtask(epicId1, "Same epic subtask")));
+            assertThrows(TimeoutException.class, () -> sameEpicWriter.get(100, TimeUnit.MILLISECONDS),
+                    "Подзадача того же эпика добавлена без ожидания блокировки эпика.");
+
+            release.countDown();
+            assertTrue(blockedWriter.get(10, TimeUnit.SECONDS) >= 0, "Подзадача не добавлена.");
+            assertTrue(sameEpicWriter.get(10, TimeUnit.SECONDS) >= 0, "Подзадача не добавлена.");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, manager.getSubtasksByEpic(epicId1).size(), "Неверное число подзадач эпика 1.");
+        assertEquals(1, manager.getSubtasksByEpic(epicId2).size(), "Неверное число подзадач эпика 2.");
+    }
+
+    // расчет статуса эпика по статусам подзадач
+    private TaskStatus expectedStatus(List<Subtask> subtasks) {
+        if (subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW)) {
+            return TaskStatus.NEW;
+        }
+        if (subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE)) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+}
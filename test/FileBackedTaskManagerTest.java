@@ -1,17 +1,30 @@
 import exceptions.LoadException;
 import exceptions.SaveException;
+import exceptions.TaskCrossTimeException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import storage.BinaryTaskReader;
+import storage.CsvTokenizer;
+import storage.DateTimeCodec;
+import storage.FileFormat;
+import storage.ParallelCsvLoader;
+import storage.SyncPolicy;
 import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskStatus;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,6 +59,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     @AfterEach
     void afterEach() {
         tmpFile.delete();
+        new File(filename + FileBackedTaskManager.JOURNAL_SUFFIX).delete();
     }
 
     /**
@@ -193,4 +207,361 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
                 },
                 "Неверный формат времени при загрузке должен привести к исключению.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Тестируем исключение при загрузке подзадачи, эпик которой отсутствует в файле
+     */
+    @Test
+    void loadOrphanSubtask() throws IOException {
+        int epicId = manager.addNewEpic(new Epic("Test loadOrphanSubtask Epic", "-"));
+        int subtaskId = manager.addNewSubtask(new Subtask(epicId, "Test loadOrphanSubtask Subtask", "-"));
+        manager.addNewTask(new Task("Test loadOrphanSubtask Task"));
+
+        // удаляем из файла строку эпика
+        tmpFile = new File(filename);
+        List<String> lines = Files.readAllLines(tmpFile.toPath());
+        assertTrue(lines.removeIf(line -> line.contains(";EPIC;")), "Эпик не сохранен в файл.");
+        Files.write(tmpFile.toPath(), lines);
+
+        LoadException exception = assertThrows(LoadException.class,
+                () -> {
+                    FileBackedTaskManager.loadFromFile(tmpFile);
+                },
+                "Подзадача несуществующего эпика должна приводить к исключению.");
+        assertTrue(exception.getMessage().contains("[" + subtaskId + "]"),
+                "В сообщении нет идентификатора подзадачи: " + exception.getMessage());
+    }
+
+    /**
+     * Тестируем режим журнала изменений:
+     * изменения дописываются в журнал, снимок не перезаписывается,
+     * при загрузке снимок и журнал объединяются.
+     */
+    @Test
+    void journalMode() {
+        int taskId = manager.addNewTask(new Task("Test journalMode Task1",
+                "task1",
+                LocalDateTime.now(),
+                Duration.ofMinutes(15)));
+        manager.setJournalMode(true);
+        tmpFile = new File(filename);
+        final long snapshotLength = tmpFile.length();
+
+        int epicId = manager.addNewEpic(new Epic("Test journalMode Epic1",
+                "epic1"));
+        int subtaskId = manager.addNewSubtask(new Subtask(epicId, "Test journalMode Subtask1",
+                "subtask1",
+                LocalDateTime.now().plusMinutes(20),
+                Duration.ofMinutes(15)));
+        Subtask subtask = new Subtask(manager.getSubtask(subtaskId));
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        manager.removeTask(taskId);
+
+        assertEquals(snapshotLength, tmpFile.length(),
+                "В режиме журнала снимок данных не должен перезаписываться.");
+        assertTrue(new File(manager.getJournalFileName()).length() > 0,
+                "Изменения не записаны в журнал.");
+
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertNull(manager2.getTask(taskId), "Удаление задачи из журнала не применено.");
+        assertEquals(TaskStatus.DONE, manager2.getEpic(epicId).getStatus(),
+                "Статус эпика после загрузки журнала не соответствует сохраненному.");
+        assertEquals(1, manager2.getEpic(epicId).getSubtasks().size(),
+                "Подзадачи эпика после загрузки журнала не восстановлены.");
+
+        // полное сохранение переносит журнал в снимок
+        manager.save();
+        assertFalse(new File(manager.getJournalFileName()).exists(),
+                "Журнал не удален после сохранения снимка.");
+        manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertEquals(manager.getNumberOfObjects(), manager2.getNumberOfObjects(),
+                "Снимок после сжатия журнала не соответствует менеджеру.");
+    }
+
+    /**
+     * Тестируем сохранение и загрузку в двоичном формате, выгрузку в текстовый формат.
+     */
+    @Test
+    void binaryFormat() throws IOException {
+        manager.setFileFormat(FileFormat.BINARY);
+        LocalDateTime startTime = LocalDateTime.of(2024, 12, 31, 10, 5);
+        int taskId = manager.addNewTask(new Task("Задача №1",
+                "Описание задачи №1", startTime, Duration.ofMinutes(15)));
+        int epicId = manager.addNewEpic(new Epic("Эпик №1", "-"));
+        int subtaskId = manager.addNewSubtask(new Subtask(epicId, "Подзадача №1",
+                "-", startTime.plusMinutes(20), Duration.ofMinutes(15)));
+        manager.addNewTask(new Task("Задача без времени"));
+
+        tmpFile = new File(filename);
+        assertTrue(BinaryTaskReader.isBinaryFile(tmpFile), "Файл сохранен не в двоичном формате.");
+
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertEquals(FileFormat.BINARY, manager2.getFileFormat(),
+                "Формат загруженного файла не определен.");
+        assertEquals(manager.getNumberOfObjects(), manager2.getNumberOfObjects(),
+                "Число загруженных задач не соответствует сохраненному.");
+        Task task = manager2.getTask(taskId);
+        assertEquals(startTime, task.getStartTime(), "Время начала задачи искажено.");
+        assertEquals("Описание задачи №1", task.getDescription(), "Описание задачи искажено.");
+        assertEquals(epicId, manager2.getSubtask(subtaskId).getEpicId(),
+                "Идентификатор эпика подзадачи искажен.");
+        assertEquals(manager.getEpic(epicId).getEndTime(), manager2.getEpic(epicId).getEndTime(),
+                "Время завершения эпика искажено.");
+
+        // выгрузка в текстовый формат
+        File csvFile = File.createTempFile("testdata", ".csv");
+        try {
+            manager2.export(csvFile.getAbsolutePath(), FileFormat.CSV);
+            FileBackedTaskManager manager3 = FileBackedTaskManager.loadFromFile(csvFile);
+            assertEquals(FileFormat.CSV, manager3.getFileFormat(), "Формат выгруженного файла не определен.");
+            assertEquals(manager.getNumberOfObjects(), manager3.getNumberOfObjects(),
+                    "Число выгруженных задач не соответствует сохраненному.");
+        } finally {
+            csvFile.delete();
+        }
+    }
+
+    /**
+     * Тестируем исключение при загрузке оборванного двоичного файла
+     */
+    @Test
+    void truncatedBinaryFile() throws IOException {
+        manager.setFileFormat(FileFormat.BINARY);
+        manager.addNewTask(new Task("Task 1", "Description task 1",
+                LocalDateTime.now(), Duration.ofMinutes(15)));
+        tmpFile = new File(filename);
+        try (RandomAccessFile file = new RandomAccessFile(tmpFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        assertThrows(LoadException.class,
+                () -> {
+                    FileBackedTaskManager.loadFromFile(tmpFile);
+                },
+                "Загрузка оборванного файла должна приводить к исключению.");
+    }
+
+    /**
+     * Тестируем исключение при отрицательной длине строки в поврежденном двоичном файле
+     */
+    @Test
+    void corruptBinaryStringLength() throws IOException {
+        // заголовок, задача с идентификатором 1 без времени в статусе NEW, длина заголовка -5 (zigzag 9)
+        byte[] data = {'K', 'N', 'B', 'N', 1, 1, 2, 0, 0, 9};
+        try (BinaryTaskReader reader = new BinaryTaskReader(new ByteArrayInputStream(data))) {
+            assertThrows(IOException.class, reader::read,
+                    "Отрицательная длина строки должна приводить к IOException.");
+        }
+
+        Files.write(tmpFile.toPath(), data);
+        assertThrows(LoadException.class,
+                () -> {
+                    FileBackedTaskManager.loadFromFile(tmpFile);
+                },
+                "Загрузка поврежденного файла должна приводить к исключению.");
+    }
+
+    /**
+     * Тестируем фоновое сохранение: изменения копятся в памяти
+     * и записываются в файл одной операцией при вызове flush().
+     */
+    @Test
+    void asyncSave() {
+        manager.setAsyncSave(10_000);
+        tmpFile = new File(filename);
+        final long initialLength = tmpFile.length();
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        int epicId = manager.addNewEpic(new Epic("Test asyncSave Epic1", "-"));
+        for (int i = 0; i < 50; i++) {
+            manager.addNewTask(new Task("Test asyncSave Task" + i, "-",
+                    startTime.plusMinutes(20 * i), Duration.ofMinutes(15)));
+            manager.addNewSubtask(new Subtask(epicId, "Test asyncSave Subtask" + i, "-"));
+        }
+
+        assertEquals(initialLength, tmpFile.length(), "До истечения интервала файл не должен записываться.");
+
+        manager.flush();
+        assertTrue(tmpFile.length() > initialLength, "После flush() изменения не записаны в файл.");
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertEquals(manager.getNumberOfObjects(), manager2.getNumberOfObjects(),
+                "Число загруженных задач не соответствует сохраненному.");
+
+        manager.removeAllTasks();
+        manager.close();
+        assertFalse(manager.isAsyncSave(), "Фоновое сохранение не остановлено.");
+        manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertTrue(manager2.getTaskList().isEmpty(), "Изменения не записаны при закрытии менеджера.");
+    }
+
+    /**
+     * Тестируем атомарное сохранение: прерванная запись не портит файл данных,
+     * временный файл после сохранения не остается.
+     */
+    @Test
+    void atomicSave() throws IOException {
+        manager.setSyncPolicy(SyncPolicy.FULL);
+        manager.addNewTask(new Task("Test atomicSave Task1", "task1",
+                LocalDateTime.now(), Duration.ofMinutes(15)));
+        tmpFile = new File(filename);
+        File tempFile = new File(filename + FileBackedTaskManager.TEMP_SUFFIX);
+        assertFalse(tempFile.exists(), "Временный файл не удален после сохранения.");
+        final long savedLength = tmpFile.length();
+
+        // временный файл, оставшийся от прерванного сохранения, не влияет на загрузку
+        try (FileWriter fileWriter = new FileWriter(tempFile)) {
+            fileWriter.write("id;DateTime;Duration(min);type;name;status;description;epic\n1;");
+        }
+        assertEquals(savedLength, tmpFile.length(), "Файл данных изменен незавершенным сохранением.");
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertEquals(1, manager2.getNumberOfObjects(), "Файл данных загружен не полностью.");
+
+        manager.setSyncPolicy(SyncPolicy.NONE);
+        manager.addNewEpic(new Epic("Test atomicSave Epic1", "epic1"));
+        assertFalse(tempFile.exists(), "Временный файл не удален после сохранения.");
+        manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertEquals(2, manager2.getNumberOfObjects(), "Файл данных не перезаписан.");
+    }
+
+    /**
+     * Тестируем разбор файла частями: результат не зависит от размера частей,
+     * загруженный менеджер соответствует сохраненному.
+     */
+    @Test
+    void parallelLoad() throws IOException {
+        LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        int epicId = manager.addNewEpic(new Epic("Эпик parallelLoad", "-"));
+        for (int i = 0; i < 100; i++) {
+            manager.addNewTask(new Task("Задача №" + i, "-",
+                    startTime.plusMinutes(40 * i), Duration.ofMinutes(15)));
+            manager.addNewSubtask(new Subtask(epicId, "Подзадача №" + i, "-",
+                    startTime.plusMinutes(40 * i + 20), Duration.ofMinutes(15)));
+        }
+        tmpFile = new File(filename);
+
+        List<Task> wholeFile = new ParallelCsvLoader(tmpFile, Integer.MAX_VALUE).load();
+        List<Task> chunks = new ParallelCsvLoader(tmpFile, 100).load();
+        List<Task> windows = new ParallelCsvLoader(tmpFile, 100, 300).load();
+        assertEquals(manager.getNumberOfObjects(), wholeFile.size(), "Прочитаны не все строки файла.");
+        assertEquals(wholeFile.size(), chunks.size(), "Число задач зависит от размера частей файла.");
+        assertEquals(wholeFile.size(), windows.size(), "Число задач зависит от размера участков файла.");
+        for (int i = 0; i < wholeFile.size(); i++) {
+            assertEquals(wholeFile.get(i).getId(), chunks.get(i).getId(),
+                    "Порядок задач зависит от размера частей файла.");
+            assertEquals(wholeFile.get(i).getId(), windows.get(i).getId(),
+                    "Порядок задач зависит от размера участков файла.");
+        }
+        for (Task task : windows) {
+            Task savedTask = task instanceof Subtask ? manager.getSubtask(task.getId())
+                    : task instanceof Epic ? manager.getEpic(task.getId()) : manager.getTask(task.getId());
+            assertEquals(savedTask.getTitle(), task.getTitle(), "Наименование задачи искажено.");
+            assertEquals(savedTask.getStatus(), task.getStatus(), "Статус задачи искажен.");
+            assertEquals(savedTask.getStartTime(), task.getStartTime(), "Время начала задачи искажено.");
+            assertEquals(savedTask.getDuration(), task.getDuration(), "Продолжительность задачи искажена.");
+        }
+
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        Epic epic = manager.getEpic(epicId);
+        Epic epic2 = manager2.getEpic(epicId);
+        assertEquals(epic.getSubtasks(), epic2.getSubtasks(), "Подзадачи эпика не восстановлены.");
+        assertEquals(epic.getStartTime(), epic2.getStartTime(), "Время начала эпика не восстановлено.");
+        assertEquals(epic.getEndTime(), epic2.getEndTime(), "Время завершения эпика не восстановлено.");
+        assertEquals(manager.getPrioritizedTasks(), manager2.getPrioritizedTasks(),
+                "Список задач по времени не восстановлен.");
+        assertNotEquals(epicId, manager2.addNewTask(new Task("Новая задача")),
+                "Идентификатор новой задачи совпадает с загруженной.");
+    }
+
+    /**
+     * Тестируем исключение при загрузке файла с задачами, пересекающимися по времени
+     */
+    @Test
+    void loadCrossTime() {
+        try (FileWriter fileWriter = new FileWriter(filename)) {
+            fileWriter.write("id;DateTime;Duration(min);type;name;status;description;epic\n");
+            fileWriter.write("1;2024.12.31 10:00;30;TASK;Задача №1;NEW;-;\n");
+            fileWriter.write("2;2024.12.31 10:15;30;TASK;Задача №2;NEW;-;\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        assertThrows(TaskCrossTimeException.class,
+                () -> {
+                    FileBackedTaskManager.loadFromFile(tmpFile);
+                },
+                "Загрузка пересекающихся по времени задач должна приводить к исключению.");
+    }
+
+    /**
+     * Тестируем быстрый разбор и запись времени: результат совпадает с Task.DATE_TIME_FORMATTER
+     */
+    @Test
+    void dateTimeCodec() {
+        for (LocalDateTime dateTime : List.of(LocalDateTime.of(2024, 12, 31, 23, 59),
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(1, 2, 3, 4, 5))) {
+            String text = dateTime.format(Task.DATE_TIME_FORMATTER);
+            assertEquals(text, DateTimeCodec.append(new StringBuilder(), dateTime).toString(),
+                    "Время записано не в формате файла.");
+            assertEquals(dateTime, DateTimeCodec.parse(text), "Время разобрано неверно.");
+        }
+        // недопустимое число месяца приводится к последнему дню месяца так же, как форматом
+        assertEquals(LocalDateTime.parse("2025.02.30 10:00", Task.DATE_TIME_FORMATTER),
+                DateTimeCodec.parse("2025.02.30 10:00"), "Время разобрано не так, как форматом.");
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parse("2024.12.31 99:99"),
+                "Недопустимое время должно приводить к исключению.");
+        assertThrows(DateTimeParseException.class, () -> DateTimeCodec.parse("31.12.2024 10:00"),
+                "Время в другом формате должно приводить к исключению.");
+    }
+
+    /**
+     * Тестируем разбор целых чисел полей строки: результат должен совпадать с Integer.decode,
+     * в том числе для восьмеричной записи с ведущим нулем
+     */
+    @Test
+    void csvIntValue() {
+        List<String> values = List.of("10", "010", "-010", "+07", "0", "-0", "00", "0x1F", "#10",
+                "2147483647", "-2147483648");
+        CsvTokenizer tokenizer = new CsvTokenizer(values.size());
+        assertEquals(values.size(), tokenizer.reset(String.join(";", values)), "Неверное число полей.");
+        for (int field = 0; field < values.size(); field++) {
+            assertEquals(Integer.decode(values.get(field)), tokenizer.intValue(field),
+                    "Неверно разобрано число " + values.get(field));
+        }
+        assertThrows(NumberFormatException.class, () -> {
+                    tokenizer.reset("08");
+                    tokenizer.intValue(0);
+                },
+                "Недопустимое восьмеричное число должно приводить к исключению.");
+    }
+
+    /**
+     * Тестируем сохранение пакетных операций в журнале изменений
+     */
+    @Test
+    void batchJournal() throws IOException {
+        manager.setJournalMode(true);
+        final int epicId = manager.addNewEpic(new Epic("Test batchJournal Epic1", "-"));
+        List<Integer> ids = manager.addNewBatch(List.of(
+                new Task("Test batchJournal Task1", "-"),
+                new Subtask(epicId, "Test batchJournal Subtask1", "-"),
+                new Subtask(epicId, "Test batchJournal Subtask2", "-")));
+        manager.removeBatch(List.of(ids.get(0), ids.get(1)));
+
+        tmpFile = new File(filename);
+        FileBackedTaskManager manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertEquals(manager.getNumberOfObjects(), manager2.getNumberOfObjects(),
+                "Пакетные изменения не восстановлены из журнала.");
+        assertEquals(List.of(ids.get(2)), manager2.getEpic(epicId).getSubtasks(),
+                "Подзадачи эпика не восстановлены из журнала.");
+
+        // подзадача удаляется вместе со своим эпиком из того же списка
+        manager.removeBatch(List.of(epicId, ids.get(2)));
+        String journal = Files.readString(new File(filename + FileBackedTaskManager.JOURNAL_SUFFIX).toPath());
+        assertFalse(journal.contains("DEL;SUBTASK;" + ids.get(2)),
+                "Подзадача, удаленная вместе с эпиком, не должна записываться в журнал отдельно.");
+        manager2 = FileBackedTaskManager.loadFromFile(tmpFile);
+        assertNull(manager2.getEpic(epicId), "Удаление эпика не восстановлено из журнала.");
+        assertEquals(manager.getNumberOfObjects(), manager2.getNumberOfObjects(),
+                "Пакетное удаление эпика с подзадачей не восстановлено из журнала.");
+    }
+}
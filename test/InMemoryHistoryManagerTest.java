@@ -8,6 +8,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class InMemoryHistoryManagerTest {
     private static HistoryManager historyManager;
@@ -46,10 +47,21 @@ class InMemoryHistoryManagerTest {
                 "История не пополняется.");
 
         // для задачи с существующим идентификатором запись истории должна перезаписаться
+        final List<Task> oldHistory = historyManager.getHistory();
         task.setStatus(TaskStatus.DONE);
         historyManager.add(task);
         assertEquals(TaskStatus.DONE, historyManager.getHistory().get(1).getStatus(),
                 "История не обновляется.");
+        // ранее прочитанная история не должна меняться
+        assertEquals(TaskStatus.NEW, oldHistory.get(1).getStatus(),
+                "Изменилась ранее прочитанная запись истории.");
+
+        // повторный просмотр неизмененной задачи переносит прежнюю копию без создания новой
+        final Task storedCopy = historyManager.getHistory().get(1);
+        historyManager.add(historyManager.getHistory().getFirst());
+        historyManager.add(task);
+        assertSame(storedCopy, historyManager.getHistory().get(1),
+                "При повторном просмотре неизмененной задачи создана новая копия.");
     }
 
     /**
@@ -110,4 +122,30 @@ class InMemoryHistoryManagerTest {
         assertEquals(4, historyManager.getHistory().get(0).getId(),
                 "непредвиденная последовательность при удалении элемента \"начало\".");
     }
-}
\ No newline at end of file
+
+    /**
+     * Тестируем вытеснение самых старых записей из истории ограниченного размера
+     */
+    @Test
+    public void capacity() {
+        HistoryManager boundedHistory = Managers.getDefaultHistory(3);
+        for (int i = 1; i <= 5; i++) {
+            Task task = new Task("History capacity task " + i);
+            task.setId(i);
+            boundedHistory.add(task);
+        }
+        List<Task> history = boundedHistory.getHistory();
+        assertEquals(3, history.size(), "Размер истории превышает заданный.");
+        assertEquals(3, history.get(0).getId(), "Вытеснена не самая старая запись.");
+
+        // повторный просмотр переносит запись в конец без вытеснения
+        Task task = new Task("History capacity task 3");
+        task.setId(3);
+        task.setStatus(TaskStatus.DONE);
+        boundedHistory.add(task);
+        history = boundedHistory.getHistory();
+        assertEquals(3, history.size(), "Размер истории изменился при повторном просмотре.");
+        assertEquals(4, history.get(0).getId(), "Нарушен порядок записей истории.");
+        assertEquals(TaskStatus.DONE, history.get(2).getStatus(), "Запись истории не обновлена.");
+    }
+}
@@ -8,6 +8,7 @@ import tasks.TaskStatus;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -108,6 +109,36 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
                 "Наложение времени задач должно приводить к исключению.");
     }
 
+    /**
+     * Тестируем подсчет числа конфликтов по времени.
+     */
+    @Test
+    void timeConflictCount() {
+        LocalDateTime startTime = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            manager.addNewTask(new Task("Test timeConflictCount Task" + i,
+                    "task" + i,
+                    startTime.plusMinutes(20L * i),
+                    Duration.ofMinutes(10)));
+        }
+        manager.addNewTask(new Task("Test timeConflictCount Task3",
+                "task3",
+                startTime.plusMinutes(100),
+                Duration.ofMinutes(10)));
+
+        // задача перекрывает первые три задачи
+        TaskCrossTimeException exception = assertThrows(TaskCrossTimeException.class,
+                () -> {
+                    manager.addNewTask(new Task("Test timeConflictCount Task4",
+                            "task4",
+                            startTime.plusMinutes(5),
+                            Duration.ofMinutes(40)));
+                },
+                "Наложение времени задач должно приводить к исключению.");
+        assertTrue(exception.getDetailMessage().endsWith("число конфликтов - 3"),
+                "Неверное число конфликтов.\n" + exception.getDetailMessage());
+    }
+
     /**
      * Тестируем расчет времени и продолжительность эпика
      */
@@ -146,6 +177,55 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
                         + epic.toString());
     }
 
+    /**
+     * Тестируем пересчет времени и статуса эпика при изменении и удалении подзадач
+     */
+    @Test
+    void epicAggregatesAfterChanges() {
+        Epic epic = new Epic("Test epicAggregates Epic", "Epic");
+        final int epicId = manager.addNewEpic(epic);
+        LocalDateTime startTime = LocalDateTime.now();
+
+        int subtaskId1 = manager.addNewSubtask(new Subtask(epicId, "Test epicAggregates Subtask1",
+                "subtask1", startTime, Duration.ofMinutes(10)));
+        int subtaskId2 = manager.addNewSubtask(new Subtask(epicId, "Test epicAggregates Subtask2",
+                "subtask2", startTime.plusMinutes(20), Duration.ofMinutes(10)));
+        int subtaskId3 = manager.addNewSubtask(new Subtask(epicId, "Test epicAggregates Subtask3",
+                "subtask3", startTime.plusMinutes(40), Duration.ofMinutes(10)));
+
+        // удаляем самую раннюю подзадачу
+        manager.removeSubtask(subtaskId1);
+        assertEquals(startTime.plusMinutes(20), epic.getStartTime(),
+                "Время начала эпика не пересчитано после удаления подзадачи.");
+        assertEquals(20, epic.getDuration().toMinutes(),
+                "Продолжительность эпика не пересчитана после удаления подзадачи.");
+
+        // переносим подзадачу на более позднее время и завершаем ее
+        Subtask subtask = new Subtask(manager.getSubtask(subtaskId2));
+        subtask.setStartTime(startTime.plusMinutes(60));
+        subtask.setDuration(Duration.ofMinutes(30));
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        assertEquals(startTime.plusMinutes(40), epic.getStartTime(),
+                "Время начала эпика не пересчитано после изменения подзадачи.");
+        assertEquals(startTime.plusMinutes(90), epic.getEndTime(),
+                "Время завершения эпика не пересчитано после изменения подзадачи.");
+        assertEquals(40, epic.getDuration().toMinutes(),
+                "Продолжительность эпика не пересчитана после изменения подзадачи.");
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(),
+                "Неожидаемый статус у эпика. (подзадачи - NEW,DONE)");
+
+        manager.removeSubtask(subtaskId3);
+        assertEquals(TaskStatus.DONE, epic.getStatus(),
+                "Неожидаемый статус у эпика. (подзадачи - DONE)");
+
+        manager.removeAllSubtasks();
+        assertNull(epic.getStartTime(),
+                "Время начала работы эпика без подзадач должно быть null");
+        assertEquals(TaskStatus.NEW, epic.getStatus(),
+                "Неожидаемый статус у эпика без подзадач.");
+    }
+
     /**
      * Тестируем удаление задачи из отсоритрованного списка
      */
@@ -200,4 +280,28 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         assertEquals(expectedSortedSize, manager.getPrioritizedTasks().size(),
                 "Ошибка удаления подзадачи из отсортированного списка задач.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Тестируем кэширование отсортированного списка задач
+     */
+    @Test
+    void cachedPrioritizedTasks() {
+        final LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        final int taskId = manager.addNewTask(new Task("Test cachedPrioritizedTasks task1", "task1",
+                startTime, Duration.ofMinutes(10)));
+
+        List<Task> prioritizedTasks = manager.getPrioritizedTasks();
+        assertSame(prioritizedTasks, manager.getPrioritizedTasks(),
+                "Список без изменений задач должен браться из кэша.");
+        assertThrows(UnsupportedOperationException.class, () -> prioritizedTasks.remove(0),
+                "Отсортированный список задач не должен изменяться.");
+
+        manager.addNewTask(new Task("Test cachedPrioritizedTasks task2", "task2",
+                startTime.minusHours(1), Duration.ofMinutes(10)));
+        List<Task> changedTasks = manager.getPrioritizedTasks();
+        assertNotSame(prioritizedTasks, changedTasks, "Кэш не сброшен после добавления задачи.");
+        assertEquals(2, changedTasks.size(), "Неверное число задач в отсортированном списке.");
+        assertEquals(taskId, changedTasks.get(1).getId(), "Неверный порядок задач.");
+        assertEquals(1, prioritizedTasks.size(), "Ранее полученный список не должен изменяться.");
+    }
+}
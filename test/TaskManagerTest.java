@@ -1,13 +1,22 @@
+import exceptions.TaskCrossTimeException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import query.QueryPlan;
+import query.QueryResult;
+import query.TaskQuery;
 import tasks.Epic;
 import tasks.Subtask;
 import tasks.Task;
 import tasks.TaskStatus;
+import tasks.TaskType;
+import tasks.TimeSlot;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.BiFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -368,6 +377,43 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(2, subtasks.size(), "Неверное количество подзадач.");
     }
 
+    /**
+     * Подзадачи эпика, выбранные по списку эпика, должны совпадать
+     * с результатом фильтрации всех подзадач по идентификатору эпика.
+     */
+    @Test
+    void getSubtasksByEpicMatchesFilter() {
+        final int epicId = manager.addNewEpic(new Epic("Test getSubtasksByEpicMatchesFilter Epic1",
+                "-"));
+        final int epicId2 = manager.addNewEpic(new Epic("Test getSubtasksByEpicMatchesFilter Epic2",
+                "-"));
+        LocalDateTime startTime = LocalDateTime.now();
+        for (int i = 0; i < 6; i++) {
+            manager.addNewSubtask(new Subtask(i % 2 == 0 ? epicId : epicId2,
+                    "Test getSubtasksByEpicMatchesFilter Subtask" + i,
+                    "" + i, startTime.plusMinutes(40L * i), Duration.ofMinutes(30)));
+        }
+
+        // переносим подзадачу в другой эпик и удаляем одну из подзадач
+        Subtask moved = new Subtask(manager.getSubtasksByEpic(epicId).get(0));
+        moved.setEpicId(epicId2);
+        manager.updateSubtask(moved);
+        manager.removeSubtask(manager.getSubtasksByEpic(epicId2).get(0).getId());
+
+        for (int id : List.of(epicId, epicId2)) {
+            List<Subtask> expected = manager.getSubtaskList().stream()
+                    .filter(subtask -> subtask.getEpicId() == id)
+                    .sorted(Comparator.comparing(Subtask::getId))
+                    .toList();
+            List<Subtask> subtasks = manager.getSubtasksByEpic(id).stream()
+                    .sorted(Comparator.comparing(Subtask::getId))
+                    .toList();
+            assertEquals(expected, subtasks, "Подзадачи эпика не совпадают с отбором по эпику.");
+            assertEquals(manager.getEpic(id).getSubtasks().size(), subtasks.size(),
+                    "Список подзадач эпика не соответствует подзадачам менеджера.");
+        }
+    }
+
     @Test
     void getHistory() {
         final int taskId = manager.addNewTask(new Task("Test getHistory task1",
@@ -419,4 +465,421 @@ abstract class TaskManagerTest<T extends TaskManager> {
                             + task2.toString() + "\n");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Тестируем пакетные операции: добавление с общей проверкой пересечений,
+     * обмен времени задач одним обновлением, удаление по списку идентификаторов.
+     */
+    @Test
+    void batchOperations() {
+        final LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        final int epicId = manager.addNewEpic(new Epic("Test batchOperations Epic1", "-"));
+        List<Task> batch = List.of(
+                new Task("Test batchOperations Task1", "-", startTime, Duration.ofMinutes(30)),
+                new Subtask(epicId, "Test batchOperations Subtask1", "-",
+                        startTime.plusHours(1), Duration.ofMinutes(30)),
+                new Subtask(epicId + 1000, "Test batchOperations Subtask2", "-"),
+                new Subtask(epicId, "Test batchOperations Subtask3", "-",
+                        startTime.plusHours(2), Duration.ofMinutes(30)));
+        List<Integer> ids = manager.addNewBatch(batch);
+        assertEquals(4, ids.size(), "Результат возвращен не для всех элементов списка.");
+        assertEquals(-2, ids.get(2), "Подзадача без эпика не должна добавляться.");
+        assertEquals(3, manager.getPrioritizedTasks().size(), "Добавлены не все задачи списка.");
+        assertEquals(List.of(ids.get(1), ids.get(3)), manager.getEpic(epicId).getSubtasks(),
+                "Подзадачи не добавлены в эпик.");
+        assertEquals(startTime.plusHours(2).plusMinutes(30), manager.getEpic(epicId).getEndTime(),
+                "Время завершения эпика не пересчитано.");
+
+        // при пересечении внутри списка не добавляется ни одна задача
+        final int numberOfObjects = manager.getNumberOfObjects();
+        assertThrows(TaskCrossTimeException.class, () -> manager.addNewBatch(List.of(
+                new Task("Test batchOperations Task2", "-", startTime.plusHours(5), Duration.ofMinutes(30)),
+                new Task("Test batchOperations Task3", "-", startTime.plusHours(5).plusMinutes(10),
+                        Duration.ofMinutes(30)))), "Пересечение задач списка должно приводить к исключению.");
+        assertEquals(numberOfObjects, manager.getNumberOfObjects(), "Задачи добавлены несмотря на конфликт.");
+
+        // обмен времени двух подзадач невозможен по одной, но возможен одним обновлением
+        Subtask subtask1 = new Subtask(manager.getSubtask(ids.get(1)));
+        Subtask subtask3 = new Subtask(manager.getSubtask(ids.get(3)));
+        subtask1.setStartTime(startTime.plusHours(2));
+        subtask3.setStartTime(startTime.plusHours(1));
+        subtask3.setStatus(TaskStatus.DONE);
+        assertEquals(List.of(ids.get(1), ids.get(3)), manager.updateBatch(List.of(subtask1, subtask3)),
+                "Обновлены не все задачи списка.");
+        assertEquals(startTime.plusHours(2), manager.getSubtask(ids.get(1)).getStartTime(),
+                "Время подзадачи не обновлено.");
+        assertEquals(3, manager.getPrioritizedTasks().size(), "В списке по времени остались прежние версии задач.");
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpic(epicId).getStatus(), "Статус эпика не пересчитан.");
+
+        manager.removeBatch(List.of(ids.get(0), ids.get(1), -1));
+        assertNull(manager.getTask(ids.get(0)), "Задача не удалена.");
+        assertNull(manager.getSubtask(ids.get(1)), "Подзадача не удалена.");
+        assertEquals(List.of(ids.get(3)), manager.getEpic(epicId).getSubtasks(), "Подзадача не удалена из эпика.");
+        assertEquals(TaskStatus.DONE, manager.getEpic(epicId).getStatus(), "Статус эпика не пересчитан.");
+        assertEquals(1, manager.getPrioritizedTasks().size(), "Удаленные задачи остались в списке по времени.");
+    }
+
+    /**
+     * Тестируем ссылки подзадач на эпики из того же списка по позиции
+     * и восстановление идентификаторов элементов списка при конфликте.
+     */
+    @Test
+    void batchEpicReferences() {
+        final LocalDateTime startTime = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Epic epic1 = new Epic("Test batchEpicReferences Epic1", "-");
+        Subtask subtask1 = new Subtask(TaskManager.batchEpicId(0), "Test batchEpicReferences Subtask1", "-");
+        Subtask subtask2 = new Subtask(TaskManager.batchEpicId(3), "Test batchEpicReferences Subtask2", "-");
+        Epic epic2 = new Epic("Test batchEpicReferences Epic2", "-");
+        Subtask subtask3 = new Subtask(TaskManager.batchEpicId(1), "Test batchEpicReferences Subtask3", "-");
+        List<Integer> ids = manager.addNewBatch(List.of(epic1, subtask1, subtask2, epic2, subtask3));
+        assertEquals(-2, ids.get(4), "Подзадача со ссылкой не на эпик не должна добавляться.");
+        assertEquals(List.of(ids.get(1)), manager.getEpic(ids.get(0)).getSubtasks(),
+                "Подзадача не добавлена в эпик, указанный позицией в списке.");
+        assertEquals(List.of(ids.get(2)), manager.getEpic(ids.get(3)).getSubtasks(),
+                "Подзадача не добавлена в эпик, расположенный дальше в списке.");
+        assertEquals(ids.get(3), manager.getSubtask(ids.get(2)).getEpicId(),
+                "Ссылка на эпик по позиции не заменена идентификатором эпика.");
+
+        // при конфликте элементы списка сохраняют прежние идентификаторы и ссылки
+        final int numberOfObjects = manager.getNumberOfObjects();
+        Epic epic3 = new Epic("Test batchEpicReferences Epic3", "-");
+        Subtask subtask4 = new Subtask(TaskManager.batchEpicId(0), "Test batchEpicReferences Subtask4", "-",
+                startTime, Duration.ofMinutes(30));
+        Task task = new Task("Test batchEpicReferences Task1", "-", startTime.plusMinutes(10),
+                Duration.ofMinutes(30));
+        assertThrows(TaskCrossTimeException.class, () -> manager.addNewBatch(List.of(epic3, subtask4, task)),
+                "Пересечение задач списка должно приводить к исключению.");
+        assertEquals(numberOfObjects, manager.getNumberOfObjects(), "Задачи добавлены несмотря на конфликт.");
+        assertEquals(0, epic3.getId(), "Идентификатор эпика не восстановлен после конфликта.");
+        assertEquals(0, subtask4.getId(), "Идентификатор подзадачи не восстановлен после конфликта.");
+        assertEquals(TaskManager.batchEpicId(0), subtask4.getEpicId(),
+                "Ссылка подзадачи на эпик не восстановлена после конфликта.");
+        assertEquals(0, task.getId(), "Идентификатор задачи не восстановлен после конфликта.");
+
+        // после исправления конфликта тот же список добавляется повторно
+        task.setStartTime(startTime.plusHours(1));
+        ids = manager.addNewBatch(List.of(epic3, subtask4, task));
+        assertEquals(List.of(ids.get(1)), manager.getEpic(ids.get(0)).getSubtasks(),
+                "Повторно добавленная подзадача не добавлена в эпик списка.");
+    }
+
+    /**
+     * Тестируем поиск свободных интервалов между задачами
+     */
+    @Test
+    void findFreeSlots() {
+        final LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        manager.addNewTask(new Task("Test findFreeSlots Task1", "-",
+                day.withHour(10), Duration.ofMinutes(30)));
+        final int epicId = manager.addNewEpic(new Epic("Test findFreeSlots Epic1", "-"));
+        manager.addNewSubtask(new Subtask(epicId, "Test findFreeSlots Subtask1", "-",
+                day.withHour(11), Duration.ofMinutes(30)));
+
+        assertEquals(List.of(new TimeSlot(day.withHour(9), day.withHour(9).withMinute(59)),
+                        new TimeSlot(day.withHour(10).withMinute(31), day.withHour(10).withMinute(59)),
+                        new TimeSlot(day.withHour(11).withMinute(31), null)),
+                manager.findFreeSlots(Duration.ofMinutes(20), day.withHour(9), null, 10),
+                "Неверные свободные интервалы.");
+        assertEquals(List.of(new TimeSlot(day.withHour(9), day.withHour(9).withMinute(59)),
+                        new TimeSlot(day.withHour(11).withMinute(31), null)),
+                manager.findFreeSlots(Duration.ofMinutes(40), day.withHour(9), null, 10),
+                "Интервал меньше продолжительности задачи не должен возвращаться.");
+        assertEquals(List.of(new TimeSlot(day.withHour(10).withMinute(31), day.withHour(10).withMinute(59))),
+                manager.findFreeSlots(Duration.ofMinutes(20), day.withHour(10).withMinute(10),
+                        day.withHour(11).withMinute(10), 10),
+                "Не учтены выполняемая задача или крайний срок.");
+        assertEquals(1, manager.findFreeSlots(Duration.ofMinutes(20), day.withHour(9), null, 1).size(),
+                "Возвращено больше интервалов, чем запрошено.");
+
+        // задача, начатая в найденном интервале, добавляется без конфликта
+        TimeSlot slot = manager.findFreeSlots(Duration.ofMinutes(28), day.withHour(10), null, 1).get(0);
+        assertTrue(manager.addNewTask(new Task("Test findFreeSlots Task2", "-",
+                slot.getStart(), Duration.ofMinutes(28))) >= 0, "Задача в свободном интервале не добавлена.");
+    }
+
+    /**
+     * Тестируем выборку задач по интервалу времени и постраничный просмотр списка по времени
+     */
+    @Test
+    void timeRangeQueries() {
+        final LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Integer> ids = new ArrayList<>();
+        for (int hour = 8; hour < 18; hour++) {
+            ids.add(manager.addNewTask(new Task("Test timeRangeQueries Task" + hour, "-",
+                    day.withHour(hour), Duration.ofMinutes(30))));
+        }
+        manager.addNewTask(new Task("Test timeRangeQueries Task without time"));
+
+        List<Task> tasks = manager.getTasksBetween(day.withHour(10).withMinute(15), day.withHour(12));
+        assertEquals(List.of(ids.get(2), ids.get(3)), tasks.stream().map(Task::getId).toList(),
+                "Неверные задачи интервала: задача, начатая раньше интервала, входит в него, "
+                        + "задача, начатая в момент окончания интервала, не входит.");
+        assertTrue(manager.getTasksBetween(day.withHour(10).withMinute(30), day.withHour(10).withMinute(45))
+                .isEmpty(), "Задача, завершенная в начале интервала, не должна входить в него.");
+
+        assertEquals(List.of(ids.get(8), ids.get(9)),
+                manager.getNextTasks(day.withHour(15).withMinute(1), 5).stream().map(Task::getId).toList(),
+                "Неверные ближайшие задачи.");
+
+        List<Integer> pagedIds = new ArrayList<>();
+        List<Task> page = manager.getPrioritizedPage(null, 3);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= 3, "Размер страницы больше запрошенного.");
+            page.forEach(task -> pagedIds.add(task.getId()));
+            page = manager.getPrioritizedPage(page.get(page.size() - 1), 3);
+        }
+        assertEquals(ids, pagedIds, "Постраничный просмотр не совпадает со списком по времени.");
+    }
+
+    /**
+     * Тестируем перенос задачи на новое время при обновлении
+     * и независимость хранилища по времени от изменения объекта задачи
+     */
+    @Test
+    void updateMovesTaskInTime() {
+        final LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        final int taskId = manager.addNewTask(new Task("Test updateMovesTaskInTime Task", "-",
+                day.withHour(10), Duration.ofMinutes(30)));
+
+        Task movedTask = new Task("Test updateMovesTaskInTime Task", "-", day.withHour(12),
+                Duration.ofMinutes(30));
+        movedTask.setId(taskId);
+        manager.updateTask(movedTask);
+        assertEquals(List.of(movedTask), manager.getPrioritizedTasks(),
+                "Прежняя версия задачи осталась в списке по времени.");
+        final int freeSlotTaskId = manager.addNewTask(new Task("Test updateMovesTaskInTime Task2", "-",
+                day.withHour(10), Duration.ofMinutes(30)));
+        assertTrue(freeSlotTaskId > 0, "Время прежней версии задачи не освобождено.");
+
+        // изменение объекта без обновления в менеджере не меняет его положение в хранилище
+        movedTask.setStartTime(day.withHour(8));
+        assertEquals(List.of(freeSlotTaskId, taskId),
+                manager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Порядок задач изменился без обновления задачи.");
+        assertEquals(List.of(taskId), manager.getTasksBetween(day.withHour(11), day.withHour(13))
+                .stream().map(Task::getId).toList(), "Задача не найдена по времени последнего обновления.");
+
+        manager.updateTask(movedTask);
+        assertEquals(List.of(taskId, freeSlotTaskId),
+                manager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Задача не перенесена на новое время.");
+
+        movedTask.setStartTime(null);
+        manager.updateTask(movedTask);
+        assertEquals(List.of(freeSlotTaskId),
+                manager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Задача без времени начала осталась в списке по времени.");
+    }
+
+    /**
+     * Тестируем постраничный просмотр по идентификатору и потоки задач
+     */
+    @Test
+    void pagingAndStreams() {
+        List<Integer> taskIds = new ArrayList<>();
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            epicIds.add(manager.addNewEpic(new Epic("Test pagingAndStreams Epic" + i, "-")));
+        }
+        for (int i = 0; i < 5; i++) {
+            taskIds.add(manager.addNewTask(new Task("Test pagingAndStreams Task" + i)));
+        }
+        final int subtaskId = manager.addNewSubtask(new Subtask(epicIds.get(0),
+                "Test pagingAndStreams Subtask", "-"));
+
+        // задач намного меньше, чем идентификаторов, и наоборот
+        assertEquals(taskIds, pageIds(manager::getTaskPage, 2), "Неверные страницы задач.");
+        assertEquals(epicIds, pageIds(manager::getEpicPage, 3), "Неверные страницы эпиков.");
+        assertEquals(List.of(subtaskId), pageIds(manager::getSubtaskPage, 10), "Неверные страницы подзадач.");
+
+        List<Task> page = manager.getTaskPage(null, 2);
+        manager.removeTask(taskIds.get(2));
+        assertEquals(List.of(taskIds.get(3), taskIds.get(4)),
+                manager.getTaskPage(page.get(1).getId(), 2).stream().map(Task::getId).toList(),
+                "Удаление задачи не должно нарушать просмотр по идентификатору.");
+        taskIds.remove(2);
+
+        // отрицательный размер страницы - ошибка, нулевой - пустая страница
+        assertThrows(IllegalArgumentException.class, () -> manager.getTaskPage(null, -1),
+                "Отрицательный размер страницы задач должен приводить к исключению.");
+        assertThrows(IllegalArgumentException.class, () -> manager.getEpicPage(null, -1),
+                "Отрицательный размер страницы эпиков должен приводить к исключению.");
+        assertThrows(IllegalArgumentException.class, () -> manager.getSubtaskPage(null, -1),
+                "Отрицательный размер страницы подзадач должен приводить к исключению.");
+        assertThrows(IllegalArgumentException.class, () -> manager.getPrioritizedPage(null, -1),
+                "Отрицательный размер страницы по времени должен приводить к исключению.");
+        assertThrows(IllegalArgumentException.class, () -> manager.getNextTasks(LocalDateTime.now(), -1),
+                "Отрицательное число ближайших задач должно приводить к исключению.");
+        assertTrue(manager.getTaskPage(null, 0).isEmpty(), "Страница нулевого размера не пуста.");
+
+        assertEquals(taskIds, manager.taskStream().map(Task::getId).sorted().toList(),
+                "Неверный поток задач.");
+        assertEquals(epicIds, manager.epicStream().map(Task::getId).sorted().toList(),
+                "Неверный поток эпиков.");
+        assertEquals(List.of(subtaskId), manager.subtaskStream().map(Task::getId).toList(),
+                "Неверный поток подзадач.");
+
+        manager.getTask(taskIds.get(0));
+        manager.getEpic(epicIds.get(0));
+        assertEquals(manager.getHistory(), manager.historyStream().toList(), "Неверный поток истории.");
+    }
+
+    // последовательный просмотр всех страниц
+    private static List<Integer> pageIds(BiFunction<Integer, Integer,
+            ? extends List<? extends Task>> pages, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        List<? extends Task> page = pages.apply(null, limit);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= limit, "Размер страницы больше запрошенного.");
+            page.forEach(task -> ids.add(task.getId()));
+            page = pages.apply(page.get(page.size() - 1).getId(), limit);
+        }
+        return ids;
+    }
+
+    /**
+     * Тестируем выборку и подсчет задач по статусу при добавлении, изменении и удалении
+     */
+    @Test
+    void statusIndexes() {
+        final int taskId1 = manager.addNewTask(new Task("Test statusIndexes Task1"));
+        final int taskId2 = manager.addNewTask(new Task("Test statusIndexes Task2"));
+        final int epicId = manager.addNewEpic(new Epic("Test statusIndexes Epic", "-"));
+        final int subtaskId1 = manager.addNewSubtask(new Subtask(epicId, "Test statusIndexes Subtask1", "-"));
+        final int subtaskId2 = manager.addNewSubtask(new Subtask(epicId, "Test statusIndexes Subtask2", "-"));
+        assertEquals(2, manager.getCount(TaskType.TASK, TaskStatus.NEW), "Неверное число новых задач.");
+        assertEquals(2, manager.getCount(TaskType.SUBTASK), "Неверное число подзадач.");
+
+        Task task = manager.getTask(taskId1);
+        task.setStatus(TaskStatus.DONE);
+        manager.updateTask(task);
+        Subtask subtask = new Subtask(manager.getSubtask(subtaskId1));
+        subtask.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+
+        assertEquals(List.of(taskId1), manager.getTasksByStatus(TaskStatus.DONE).stream().map(Task::getId).toList(),
+                "Неверные задачи в статусе DONE.");
+        assertEquals(1, manager.getCount(TaskType.TASK, TaskStatus.NEW), "Неверное число новых задач.");
+        assertEquals(List.of(subtaskId1), manager.getSubtasksByStatus(TaskStatus.IN_PROGRESS).stream()
+                .map(Task::getId).toList(), "Неверные подзадачи в статусе IN_PROGRESS.");
+        assertEquals(List.of(epicId), manager.getEpicsByStatus(TaskStatus.IN_PROGRESS).stream()
+                .map(Task::getId).toList(), "Статус эпика не учтен в индексе.");
+        assertEquals(0, manager.getCount(TaskType.EPIC, TaskStatus.NEW), "Неверное число новых эпиков.");
+
+        manager.removeTask(taskId2);
+        manager.removeSubtask(subtaskId1);
+        assertEquals(0, manager.getCount(TaskType.TASK, TaskStatus.NEW), "Удаленная задача осталась в индексе.");
+        assertEquals(List.of(subtaskId2), manager.getSubtasksByStatus(TaskStatus.NEW).stream()
+                .map(Task::getId).toList(), "Неверные новые подзадачи.");
+        assertEquals(1, manager.getCount(TaskType.EPIC, TaskStatus.NEW), "Статус эпика не обновлен в индексе.");
+
+        manager.removeAllEpics();
+        for (TaskStatus status : TaskStatus.values()) {
+            assertEquals(0, manager.getCount(TaskType.EPIC, status), "Индекс эпиков не очищен.");
+            assertEquals(0, manager.getCount(TaskType.SUBTASK, status), "Индекс подзадач не очищен.");
+        }
+    }
+
+    /**
+     * Тестируем поиск задач по словам заголовка и описания
+     */
+    @Test
+    void search() {
+        final int taskId = manager.addNewTask(new Task("Купить ЁЛКУ", "К новому году, ёлка зелёная"));
+        final int epicId = manager.addNewEpic(new Epic("Новогодний праздник", "Подготовка к новому году"));
+        final int subtaskId = manager.addNewSubtask(new Subtask(epicId, "Украсить елку", "Игрушки и гирлянды"));
+
+        assertEquals(List.of(taskId, subtaskId), searchIds("елку"), "Не учтены регистр и буква ё.");
+        assertEquals(List.of(taskId, epicId), searchIds("новому году"), "Неверный поиск по нескольким словам.");
+        assertEquals(List.of(epicId), searchIds("нов* подгот*"), "Неверный поиск по началу слов.");
+        assertEquals(List.of(taskId, subtaskId), searchIds("ел*"), "Неверный поиск по началу слова.");
+        assertTrue(searchIds("елку праздник").isEmpty(), "Найдена задача без всех слов запроса.");
+        assertEquals(1, manager.search("елку", 1).size(), "Найдено больше задач, чем запрошено.");
+
+        Task task = manager.getTask(taskId);
+        task.setDescription("Искусственную");
+        manager.updateTask(task);
+        assertEquals(List.of(epicId), searchIds("году"), "Прежнее описание задачи осталось в индексе.");
+        assertEquals(List.of(taskId), searchIds("искусственную ёлку"), "Новое описание не учтено в индексе.");
+
+        manager.removeSubtask(subtaskId);
+        assertEquals(List.of(taskId), searchIds("елку"), "Удаленная подзадача осталась в индексе.");
+        manager.removeAllTasks();
+        assertTrue(searchIds("ел*").isEmpty(), "Удаленные задачи остались в индексе.");
+    }
+
+    private List<Integer> searchIds(String query) {
+        return manager.search(query, 100).stream().map(Task::getId).toList();
+    }
+
+    /**
+     * Тестируем выбор плана запроса и результат выборки
+     */
+    @Test
+    void query() {
+        final LocalDateTime monday = LocalDateTime.of(2025, 1, 6, 0, 0);
+        final int epicId = manager.addNewEpic(new Epic("Test query Epic", "-"));
+        final int otherEpicId = manager.addNewEpic(new Epic("Test query Other epic", "-"));
+        List<Integer> weekIds = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            Subtask subtask = new Subtask(epicId, "Test query Subtask" + day, "-",
+                    monday.plusDays(day).withHour(10), Duration.ofMinutes(30));
+            int id = manager.addNewSubtask(subtask);
+            if (day < 7) {
+                weekIds.add(id);
+            }
+        }
+        for (int i = 0; i < 30; i++) {
+            Task task = new Task("Test query Task" + i, "-", monday.plusDays(i).withHour(12),
+                    Duration.ofMinutes(30));
+            task.setStatus(TaskStatus.DONE);
+            manager.addNewTask(task);
+            manager.addNewSubtask(new Subtask(otherEpicId, "Test query Other subtask" + i, "Отчет"));
+        }
+        Subtask doneSubtask = new Subtask(manager.getSubtask(weekIds.get(2)));
+        doneSubtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(doneSubtask);
+
+        // подзадачи эпика со статусом NEW, начатые на неделе, по времени начала
+        TaskQuery weekQuery = new TaskQuery().epic(epicId).status(TaskStatus.NEW)
+                .startingBetween(monday, monday.plusWeeks(1)).orderBy(TaskQuery.Order.START_TIME);
+        QueryResult result = manager.query(weekQuery);
+        assertEquals(QueryPlan.AccessPath.EPIC, result.getPlan().getAccessPath(), "Неверный план: " + result);
+        assertEquals(10, result.getExaminedRows(), "Просмотрены лишние задачи.");
+        List<Integer> expected = new ArrayList<>(weekIds);
+        expected.remove(weekIds.get(2));
+        assertEquals(expected, result.getTasks().stream().map(Task::getId).toList(), "Неверный результат запроса.");
+        assertEquals(result.getPlan().getAccessPath(), manager.explain(weekQuery).getAccessPath(),
+                "План запроса не совпадает с планом выполнения.");
+
+        TaskQuery timeQuery = new TaskQuery().types(TaskType.TASK, TaskType.SUBTASK)
+                .startingBetween(monday.plusDays(1), monday.plusDays(2)).orderBy(TaskQuery.Order.START_TIME);
+        result = manager.query(timeQuery);
+        assertEquals(QueryPlan.AccessPath.TIME, result.getPlan().getAccessPath(), "Неверный план: " + result);
+        assertEquals(2, result.getTasks().size(), "Неверный результат выборки по времени.");
+
+        result = manager.query(new TaskQuery().status(TaskStatus.DONE).types(TaskType.SUBTASK));
+        assertEquals(QueryPlan.AccessPath.STATUS, result.getPlan().getAccessPath(), "Неверный план: " + result);
+        assertEquals(List.of(weekIds.get(2)), result.getTasks().stream().map(Task::getId).toList(),
+                "Неверный результат выборки по статусу.");
+
+        result = manager.query(new TaskQuery().text("query other subtask3"));
+        assertEquals(QueryPlan.AccessPath.TEXT, result.getPlan().getAccessPath(), "Неверный план: " + result);
+        assertEquals(1, result.getTasks().size(), "Неверный результат выборки по словам.");
+
+        result = manager.query(new TaskQuery().id(epicId));
+        assertEquals(QueryPlan.AccessPath.ID, result.getPlan().getAccessPath(), "Неверный план: " + result);
+        assertEquals(List.of(manager.getEpic(epicId)), result.getTasks(), "Неверный результат выборки по id.");
+
+        result = manager.query(new TaskQuery().types(TaskType.EPIC).limit(1));
+        assertEquals(QueryPlan.AccessPath.SCAN, result.getPlan().getAccessPath(), "Неверный план: " + result);
+        assertEquals(List.of(epicId), result.getTasks().stream().map(Task::getId).toList(),
+                "Неверный результат перебора с ограничением.");
+
+        // нулевое ограничение дает пустой результат и для упорядоченного способа выборки
+        result = manager.query(new TaskQuery().id(epicId).limit(0));
+        assertTrue(result.getTasks().isEmpty(), "Выборка с нулевым ограничением должна быть пустой.");
+        assertThrows(IllegalArgumentException.class, () -> new TaskQuery().limit(-1),
+                "Отрицательное ограничение должно приводить к исключению.");
+    }
+}
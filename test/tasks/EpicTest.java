@@ -3,7 +3,12 @@ package tasks;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 class EpicTest {
     private static Epic epic;
@@ -41,4 +46,31 @@ class EpicTest {
         epic.setStatus(espectedStatus);
         assertEquals(espectedStatus, epic.getStatus(), "Статус не соответствует установленному");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void subtaskOrder() {
+        Epic bigEpic = new Epic("Тест 3", "Тестируем порядок подзадач");
+        bigEpic.setId(epicId);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 2; i < 20000; i++) {
+            bigEpic.addSubtask(i);
+            expected.add(i);
+        }
+        // повторное добавление не меняет список
+        bigEpic.addSubtask(2);
+        for (int i = 2; i < 20000; i += 3) {
+            bigEpic.removeSubtask(i);
+            expected.remove(Integer.valueOf(i));
+        }
+        bigEpic.addSubtask(5);
+        expected.add(5);
+
+        assertEquals(expected, bigEpic.getSubtasks(), "Нарушен порядок подзадач эпика");
+        assertEquals(expected.size(), bigEpic.getSubtaskCount(), "Не верное число подзадач у эпика");
+        PrimitiveIterator.OfInt iterator = bigEpic.subtaskIterator();
+        for (Integer subtaskId : expected) {
+            assertEquals(subtaskId, iterator.nextInt(), "Нарушен порядок перебора подзадач эпика");
+        }
+        assertFalse(iterator.hasNext(), "Перебраны лишние подзадачи");
+    }
+}
@@ -0,0 +1,88 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashMapTest {
+
+    // список значений упорядочен по возрастанию ключей независимо от порядка добавления
+    @Test
+    public void ascendingOrder() {
+        IntHashMap<String> map = new IntHashMap<>();
+        for (int i = 99; i >= -5; i--) {
+            map.put(i * 1024, "value" + i);
+        }
+        List<String> values = map.snapshot();
+        for (int i = -5; i < 100; i++) {
+            assertEquals("value" + i, values.get(i + 5), "Нарушен порядок списка значений.");
+        }
+    }
+
+    // ключи с общими младшими битами распределяются по таблице, а не собираются в одну цепочку
+    @Test
+    public void stridedKeys() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        for (int i = 0; i < 4096; i++) {
+            map.put(i * 4096, i);
+        }
+        for (int i = 0; i < 4096; i++) {
+            assertEquals(i, map.get(i * 4096), "Неверное значение ключа " + i * 4096);
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            for (int repeat = 0; repeat < 100; repeat++) {
+                for (int i = 0; i < 4096; i++) {
+                    map.get(i * 4096);
+                }
+            }
+        }, "Поиск ключей с общими младшими битами выполняется слишком долго.");
+    }
+
+    // случайные операции дают тот же результат, что и HashMap, в том числе при коллизиях
+    @Test
+    public void sameAsHashMap() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            // ключи с общими младшими битами попадают в одну цепочку
+            int key = random.nextInt(200) * 64 - 3000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "Удалено неверное значение.");
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i), "Заменено неверное значение.");
+            }
+            assertEquals(expected.size(), map.size(), "Неверный размер таблицы.");
+        }
+        for (int key = -4000; key < 14000; key++) {
+            assertEquals(expected.get(key), map.get(key), "Неверное значение ключа " + key);
+        }
+    }
+
+    // список значений не копируется до изменения таблицы, прежние списки не изменяются
+    @Test
+    public void snapshot() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(1, "one");
+        map.put(2, "two");
+        List<String> snapshot = map.snapshot();
+        assertEquals(List.of("one", "two"), snapshot, "Неверный список значений.");
+        assertSame(snapshot, map.snapshot(), "Список без изменений таблицы построен повторно.");
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add("three"),
+                "Список значений не должен изменяться.");
+
+        map.put(2, "два");
+        assertEquals(List.of("one", "два"), map.snapshot(), "Список не обновлен после замены значения.");
+        map.remove(1);
+        assertEquals(List.of("два"), map.snapshot(), "Список не обновлен после удаления значения.");
+        map.clear();
+        assertTrue(map.snapshot().isEmpty(), "Список не обновлен после очистки таблицы.");
+        assertEquals(List.of("one", "two"), snapshot, "Ранее полученный список изменился.");
+    }
+}